@@ -7,6 +7,8 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
+import org.mindgraph.controller.NotepadController;
+import org.mindgraph.util.KeywordExtractor;
 
 import java.awt.*;
 import java.awt.event.ActionListener;
@@ -14,12 +16,15 @@ import java.net.URL;
 
 public class Main extends Application {
     private TrayIcon trayIcon;
+    private NotepadController controller;
 
     @Override
     public void start(Stage stage) throws Exception {
+        KeywordExtractor.warmUp(); // POS model loads while the window comes up
         // Load FXML
         FXMLLoader fxml = new FXMLLoader(getClass().getResource("/com/mindgraph/fxml/notepad.fxml"));
         Parent root = fxml.load();
+        controller = fxml.getController();
         Scene scene = new Scene(root, 1000, 700);
 
         // Load CSS
@@ -42,6 +47,13 @@ public class Main extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Background saves finish before the graph is flushed and closed
+        if (controller != null) controller.shutdown();
+        System.exit(0); // the AWT tray thread would keep the JVM alive
+    }
+
     private void hideToSystemTray(Stage stage) {
         if (!SystemTray.isSupported()) {
             System.out.println("System tray not supported!");
@@ -74,8 +86,7 @@ public class Main extends Application {
         // Action to exit app
         ActionListener exitListener = e -> {
             tray.remove(trayIcon);
-            Platform.exit();
-            System.exit(0);
+            Platform.exit(); // stop() shuts down, then exits the JVM
         };
 
         // Popup menu
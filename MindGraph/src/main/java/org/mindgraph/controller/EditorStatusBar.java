@@ -0,0 +1,64 @@
+package org.mindgraph.controller;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import org.fxmisc.richtext.InlineCssTextArea;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.mindgraph.util.TextStats;
+
+/**
+ * Word/char counts and caret line/column for the status bar.
+ * Counts follow the editor's plain-text changes incrementally, the caret position comes
+ * from RichTextFX's paragraph index, and label updates are coalesced to one per frame.
+ */
+class EditorStatusBar {
+
+    private final InlineCssTextArea editor;
+    private final Label lblCursor;
+    private final Label lblWords;
+    private final Label lblChars;
+    private final TextStats stats = new TextStats();
+    private boolean scheduled = false;
+
+    private final AnimationTimer nextFrame = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop();
+            scheduled = false;
+            render();
+        }
+    };
+
+    EditorStatusBar(InlineCssTextArea editor, Label lblCursor, Label lblWords, Label lblChars) {
+        this.editor = editor;
+        this.lblCursor = lblCursor;
+        this.lblWords = lblWords;
+        this.lblChars = lblChars;
+
+        stats.reset(editor.getText());
+        editor.plainTextChanges().subscribe(this::onTextChange);
+        editor.caretPositionProperty().addListener((obs, ov, nv) -> schedule());
+        render();
+    }
+
+    private void onTextChange(PlainTextChange change) {
+        int start = change.getPosition();
+        int end = start + change.getInserted().length();
+        int before = start > 0 ? editor.getText(start - 1, start).charAt(0) : TextStats.NONE;
+        int after = end < editor.getLength() ? editor.getText(end, end + 1).charAt(0) : TextStats.NONE;
+        stats.apply(before, change.getRemoved(), change.getInserted(), after);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled) return;
+        scheduled = true;
+        nextFrame.start();
+    }
+
+    private void render() {
+        lblChars.setText("Chars: " + stats.getChars());
+        lblWords.setText("Words: " + stats.getWords());
+        lblCursor.setText("Ln " + (editor.getCurrentParagraph() + 1) + ", Col " + (editor.getCaretColumn() + 1));
+    }
+}
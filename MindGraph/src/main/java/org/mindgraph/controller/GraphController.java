@@ -1,66 +1,180 @@
 package org.mindgraph.controller;
 
 import org.mindgraph.datastructure.Graph;
+import org.mindgraph.datastructure.IntHashSet;
+import org.mindgraph.datastructure.MinHashIndex;
+import org.mindgraph.datastructure.TitleMatcher;
 import org.mindgraph.db.NoteDao;
 import org.mindgraph.model.Note;
+import org.mindgraph.util.GraphBinaryUtil;
+import org.mindgraph.util.KeywordReindexer;
+import org.mindgraph.util.NoteImporter;
+import org.mindgraph.util.WriteBehindPersister;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.*;
 
 public class GraphController {
-    private Graph graph;
+    private static final long SAVE_DELAY_MS = 500; // mutations within this window share one write
+
+    // "Related" links between notes with similar keyword sets, found by MinHash/LSH
+    private static final int RELATED_BANDS = 32;
+    private static final int RELATED_ROWS = 4;          // candidate curve centred at Jaccard ≈ 0.42
+    private static final int RELATED_MAX_BUCKET = 200;
+    private static final double RELATED_MIN_JACCARD = 0.5;
+    private static final long RELATED_SEED = 0x6d696e64L;
+
+    private volatile Graph graph;
     private final String saveFilePath;
     private final NoteDao noteDao;
+    private final WriteBehindPersister persister;
+
+    // Link indexes kept in step with the graph so single notes can be relinked
+    private final Map<String, List<Note>> titleIndex = new HashMap<>();  // folded title → notes
+    private final Map<String, Set<Note>> mentionIndex = new HashMap<>(); // folded keyword → notes using it
+    private final Map<Integer, Note> notesById = new HashMap<>();        // canonical instance per id
+    private final Map<Integer, IndexedState> indexedStates = new HashMap<>(); // what each note was indexed under
+    private boolean indexed = false;
+
+    private MinHashIndex relatedIndex = new MinHashIndex(RELATED_BANDS, RELATED_ROWS, RELATED_MAX_BUCKET, RELATED_SEED);
+    private double relatedMinJaccard = RELATED_MIN_JACCARD;
+    private final Map<Note, Set<Note>> related = new HashMap<>(); // symmetric: pairs linked as related
+
+    /**
+     * Folded title and keywords a note was indexed under. The indexed instance may already carry
+     * its new title and keywords when it is relinked (the editor edits the graph's own instances),
+     * so unindexing goes by this record rather than the note's current fields.
+     */
+    private record IndexedState(String titleKey, List<String> keywordKeys) {}
+
+    // Title automaton for link marking, rebuilt only when the set of titles may have changed:
+    // titleVersion moves on title adds, renames and removals, not on keyword or difficulty edits
+    private long titleVersion;
+    private TitleMatcher<Note> titleMatcher;
+    private Graph titleMatcherGraph;
+    private long titleMatcherVersion;
+    private int titleMatcherSize;
 
     public GraphController(String saveFilePath) {
+        this(saveFilePath, "mindgraph.db");
+    }
+
+    /** A controller over another database, e.g. a scratch vault for benchmarks */
+    public GraphController(String saveFilePath, String dbPath) {
         this.saveFilePath = saveFilePath;
-        this.noteDao = new NoteDao("mindgraph.db");
+        this.noteDao = new NoteDao(dbPath);
         this.graph = loadGraph();
+        this.persister = WriteBehindPersister.start(new File(saveFilePath), this::writeSnapshot, SAVE_DELAY_MS);
     }
 
+    /**
+     * The live graph. Background tasks mutate it under this controller's lock, so callers on
+     * other threads must not read it directly; use the synchronized queries below instead.
+     */
     public Graph getGraph() {
         return graph;
     }
 
+    public synchronized int size() {
+        return graph.size();
+    }
+
+    /**
+     * Study path from the easiest note, computed under the lock (it fills the graph's path caches).
+     * Returns copies in a mutable list, since relinking updates the graph's own instances on background tasks.
+     */
+    public synchronized List<Note> getStudyPath() {
+        Note start = graph.getNotes().stream()
+                .min(Comparator.comparingInt(Note::getDifficulty))
+                .orElse(null);
+        List<Note> path = new ArrayList<>();
+        if (start != null) {
+            for (Note note : graph.getStudyPath(start)) path.add(note.copy());
+        }
+        return path;
+    }
+
+    /**
+     * Matcher over every note title in the graph, rebuilt after a title was added, renamed or
+     * removed. The node count is checked too, since createEdge can add nodes on its own.
+     */
+    public synchronized TitleMatcher<Note> getTitleMatcher() {
+        Graph g = graph;
+        if (titleMatcher == null || titleMatcherGraph != g || titleMatcherVersion != titleVersion
+                || titleMatcherSize != g.size()) {
+            titleMatcher = TitleMatcher.build(g.getNotes(), Note::getTitle);
+            titleMatcherGraph = g;
+            titleMatcherVersion = titleVersion;
+            titleMatcherSize = g.size();
+        }
+        return titleMatcher;
+    }
+
     // Add a note
-    public void addNote(Note note) {
+    public synchronized void addNote(Note note) {
         graph.addNote(note);
+        titleVersion++;
         saveGraph();
     }
 
-    // Remove a note
-    public void removeNote(Note note) {
+    // Remove a note (also forgets its title and keywords for future links)
+    public synchronized void removeNote(Note note) {
+        Note node = notesById.remove(note.getId());
+        if (node != null) unindex(node);
         graph.removeNode(note);
+        titleVersion++;
         saveGraph();
     }
 
     // Add a directed edge
-    public void addEdge(Note from, Note to) {
+    public synchronized void addEdge(Note from, Note to) {
         graph.createEdge(from, to);
         saveGraph();
     }
 
     // Remove a directed edge
-    public void removeEdge(Note from, Note to) {
+    public synchronized void removeEdge(Note from, Note to) {
         graph.removeEdge(from, to);
         saveGraph();
     }
 
-    // Get neighbours (returns empty list if note not in graph)
-    public List<Note> getNeighbours(Note note) {
+    // Get neighbours (returns empty list if note not in graph); a copy, as relinking may run on another thread
+    public synchronized List<Note> getNeighbours(Note note) {
         List<Note> neighbours = graph.getNeighbours(note);
-        return neighbours != null ? neighbours : List.of();
+        return neighbours != null ? new ArrayList<>(neighbours) : List.of();
     }
 
     // -------------------- Persistence --------------------
 
+    /** Schedule a background write; bursts of mutations are coalesced into one */
     private void saveGraph() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(saveFilePath))) {
-            oos.writeObject(graph);
-        } catch (IOException e) {
-            e.printStackTrace();
+        persister.markDirty();
+    }
+
+    /** Runs on the persister thread: snapshot under the lock, write outside it */
+    private void writeSnapshot(File target) throws IOException {
+        ByteBuffer snapshot;
+        synchronized (this) {
+            snapshot = GraphBinaryUtil.encode(graph);
         }
+        GraphBinaryUtil.write(snapshot, target);
+    }
+
+    /** Write pending changes immediately (e.g. before exit) */
+    public void flush() {
+        persister.flush();
+    }
+
+    public void close() {
+        persister.close();
+        System.out.println("Graph persistence: " + persister.getCompletedWrites() + " writes, "
+                + persister.getWritesAvoided() + " avoided by coalescing");
+    }
+
+    public WriteBehindPersister getPersister() {
+        return persister;
     }
 
     private Graph loadGraph() {
@@ -68,10 +182,17 @@ public class GraphController {
         if (!file.exists()) {
             return new Graph(); // empty graph if nothing saved yet
         }
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            return (Graph) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+        try {
+            long startNanos = System.nanoTime();
+            Map<Integer, Note> notes = new HashMap<>();
+            noteDao.forEachNote(NoteDao.Projection.LINKS, NoteDao.DEFAULT_FETCH_SIZE, n -> notes.put(n.getId(), n));
+
+            Graph loaded = GraphBinaryUtil.load(file, notes::get);
+            System.out.println("Loaded graph file in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+            return loaded;
+        } catch (IOException | SQLException | RuntimeException e) {
+            // Older Java-serialized or damaged graph files land here; the startup rebuild replaces them
+            System.err.println("Could not load graph file, starting empty: " + e);
             return new Graph(); // fallback to empty graph
         }
     }
@@ -79,26 +200,259 @@ public class GraphController {
     /** Build or update the graph based on keywords → title matches
      * @param reset true to clear the graph before rebuilding
      */
-    public void buildGraphFromDb(boolean reset) throws SQLException {
+    public synchronized void buildGraphFromDb(boolean reset) throws SQLException {
         if (reset) {
             graph = new Graph(); // clear existing edges/nodes
         }
 
-        List<Note> allNotes = noteDao.findAll();
+        long startNanos = System.nanoTime();
+        List<Note> allNotes = reindex();
 
-        // Case-insensitive matching: keyword → title
+        // Case-insensitive matching: keyword → title, one index lookup per keyword
+        int edges = 0;
         for (Note note : allNotes) {
-            for (String keyword : note.getKeywords()) {
-                for (Note candidate : allNotes) {
-                    // Skip if the candidate is the same note (title matches its own title)
-                    if (!candidate.equals(note) && candidate.getTitle().equalsIgnoreCase(keyword)) {
-                        graph.createEdge(note, candidate);
-                    }
+            edges += linkOutgoing(note);
+        }
+
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("Linked " + allNotes.size() + " notes (" + edges + " keyword matches) in " + elapsedMs + " ms");
+
+        saveGraph(); // persist updated graph
+    }
+
+    /**
+     * Bulk-register every note file under the folder, then relink the graph once.
+     * Runs on the caller's thread; the import itself is parallel and batched.
+     */
+    public NoteImporter.Result importFolder(File folder) throws IOException, SQLException {
+        NoteImporter.Result result = new NoteImporter(noteDao).importFolder(folder.toPath());
+        if (result.inserted() + result.updated() > 0) buildGraphFromDb(false);
+        return result;
+    }
+
+    /**
+     * Re-extract every note's keywords from its file (resuming an interrupted run unless
+     * restart is set), then rebuild the graph from scratch since old keyword edges are stale.
+     * Runs on the caller's thread; extraction itself is parallel and batched.
+     */
+    public KeywordReindexer.Result rekeyNotes(boolean restart) throws SQLException {
+        KeywordReindexer.Result result = new KeywordReindexer(noteDao).run(KeywordReindexer.DEFAULT_JOB, restart);
+        if (result.updated() > 0) buildGraphFromDb(true);
+        return result;
+    }
+
+    /**
+     * Tune related-note linking; applies from the next buildGraphFromDb or updateNote, which reindex.
+     * Pairs become candidates around Jaccard (1/bands)^(1/rows) and are kept from minJaccard up,
+     * so set minJaccard near that. More bands find more pairs (recall) at more build time.
+     * bands = 0 turns related links off; buildGraphFromDb(true) drops related edges already made.
+     */
+    public synchronized void setRelatedLinking(int bands, int rows, double minJaccard) {
+        relatedIndex = bands > 0 ? new MinHashIndex(bands, rows, RELATED_MAX_BUCKET, RELATED_SEED) : null;
+        relatedMinJaccard = minJaccard;
+        indexed = false; // rebuild the index with the new settings
+    }
+
+    /**
+     * Relink a single saved note after its title or keywords changed.
+     * Only the note's own out-edges and the in-edges from notes mentioning its
+     * old or new title are touched, so the cost follows the note's degree.
+     */
+    public synchronized void updateNote(Note changed) throws SQLException {
+        if (changed == null || changed.getId() == 0) return;
+        ensureIndexed();
+
+        IndexedState before = indexedStates.get(changed.getId());
+        Note node = notesById.get(changed.getId());
+        if (node == null) {
+            node = graph.getNote(changed.getId());
+            if (node == null) node = changed;
+            notesById.put(node.getId(), node);
+        } else {
+            unindex(node);
+        }
+
+        copyMetadata(changed, node);
+        index(node);
+        if (before == null || !Objects.equals(before.titleKey(), indexedStates.get(node.getId()).titleKey())) {
+            titleVersion++; // keyword-only saves keep the title matcher
+        }
+        linkOutgoing(node);
+        linkIncoming(node);
+        linkRelated(node);
+        graph.invalidate(); // keywords/difficulty feed the edge weights
+
+        saveGraph();
+    }
+
+    // -------------------- Link indexes --------------------
+
+    /**
+     * Replace the indexes with every note in the database, reusing instances already in the graph.
+     * Notes are streamed with the link projection (no bodies or dates) and indexed as they arrive.
+     * The LSH index and the related links are rebuilt here too, since updateNote relies on them
+     * being complete whenever the indexes are (also after setRelatedLinking forces a reindex).
+     */
+    private List<Note> reindex() throws SQLException {
+        titleIndex.clear();
+        mentionIndex.clear();
+        notesById.clear();
+        indexedStates.clear();
+        related.clear();
+        if (relatedIndex != null) relatedIndex.clear();
+
+        List<Note> canonical = new ArrayList<>(graph.size());
+        noteDao.forEachNote(NoteDao.Projection.LINKS, NoteDao.DEFAULT_FETCH_SIZE, note -> {
+            Note node = graph.getNote(note.getId());
+            if (node == null) {
+                node = note;
+            } else if (node != note) {
+                copyMetadata(note, node);
+            }
+            notesById.put(node.getId(), node);
+            index(node);
+            canonical.add(node);
+        });
+        if (relatedIndex != null) linkAllRelated(canonical);
+        graph.invalidate();
+        titleVersion++;
+        indexed = true;
+        return canonical;
+    }
+
+    private void ensureIndexed() throws SQLException {
+        if (!indexed) reindex();
+    }
+
+    private void index(Note note) {
+        String titleKey = note.getTitle() != null ? foldCase(note.getTitle()) : null;
+        if (titleKey != null) {
+            titleIndex.computeIfAbsent(titleKey, k -> new ArrayList<>(1)).add(note);
+        }
+        List<String> keywordKeys = new ArrayList<>();
+        for (String keyword : note.getKeywords()) {
+            String key = foldCase(keyword);
+            mentionIndex.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(note);
+            keywordKeys.add(key);
+        }
+        indexedStates.put(note.getId(), new IndexedState(titleKey, keywordKeys));
+    }
+
+    /** Drop a note's index entries together with every edge they produced */
+    private void unindex(Note note) {
+        for (Note target : List.copyOf(graph.getNeighbours(note))) {
+            graph.removeEdge(note, target);
+        }
+        IndexedState state = indexedStates.remove(note.getId());
+        if (state != null) {
+            if (state.titleKey() != null) {
+                for (Note source : mentionIndex.getOrDefault(state.titleKey(), Set.of())) {
+                    graph.removeEdge(source, note);
                 }
+                removeFromIndex(titleIndex, state.titleKey(), note);
             }
+            for (String keywordKey : state.keywordKeys()) {
+                removeFromIndex(mentionIndex, keywordKey, note);
+            }
+        }
+        for (Note other : related.getOrDefault(note, Set.of())) {
+            graph.removeEdge(other, note);
+            removeFromIndex(related, other, note);
         }
+        related.remove(note);
+        if (relatedIndex != null) relatedIndex.remove(note.getId());
+    }
 
-        saveGraph(); // persist updated graph
+    private static <K, C extends Collection<Note>> void removeFromIndex(Map<K, C> index, K key, Note note) {
+        C notes = index.get(key);
+        if (notes == null) return;
+        notes.remove(note);
+        if (notes.isEmpty()) index.remove(key);
+    }
+
+    /** Edges note → every other note whose title equals one of its keywords */
+    private int linkOutgoing(Note note) {
+        int edges = 0;
+        for (String keyword : note.getKeywords()) {
+            for (Note candidate : titleIndex.getOrDefault(foldCase(keyword), List.of())) {
+                // Skip if the candidate is the same note (title matches its own title)
+                if (!candidate.equals(note)) {
+                    graph.createEdge(note, candidate);
+                    edges++;
+                }
+            }
+        }
+        return edges;
+    }
+
+    /** Edges from every other note that has this note's title as a keyword */
+    private void linkIncoming(Note note) {
+        if (note.getTitle() == null) return;
+        for (Note source : mentionIndex.getOrDefault(foldCase(note.getTitle()), Set.of())) {
+            if (!source.equals(note)) graph.createEdge(source, note);
+        }
+    }
+
+    /**
+     * Related edges for the whole graph: index every keyword set, then check each LSH
+     * candidate pair once with the exact Jaccard similarity. Sub-quadratic unlike all pairs.
+     */
+    private void linkAllRelated(List<Note> notes) {
+        long startNanos = System.nanoTime();
+        for (Note note : notes) {
+            relatedIndex.put(note.getId(), note.getKeywordIds());
+        }
+
+        int candidates = 0;
+        int pairs = 0;
+        for (Note note : notes) {
+            IntHashSet others = relatedIndex.candidates(note.getId());
+            for (int id : others.toArray()) {
+                if (id < note.getId()) continue; // each pair once
+                candidates++;
+                Note other = notesById.get(id);
+                if (other != null && linkIfRelated(note, other)) pairs++;
+            }
+        }
+        System.out.println("Related: " + pairs + " pairs from " + candidates + " candidates in "
+                + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+    }
+
+    /** Related edges for one note whose keywords changed */
+    private void linkRelated(Note note) {
+        if (relatedIndex == null) return;
+        relatedIndex.put(note.getId(), note.getKeywordIds());
+        for (int id : relatedIndex.candidates(note.getId()).toArray()) {
+            Note other = notesById.get(id);
+            if (other != null) linkIfRelated(note, other);
+        }
+    }
+
+    /** Link both ways when the keyword sets are similar enough; Graph weighs the edges by their overlap */
+    private boolean linkIfRelated(Note a, Note b) {
+        if (a.equals(b) || MinHashIndex.jaccard(a.getKeywordIds(), b.getKeywordIds()) < relatedMinJaccard) {
+            return false;
+        }
+        graph.createEdge(a, b);
+        graph.createEdge(b, a);
+        related.computeIfAbsent(a, k -> new HashSet<>()).add(b);
+        related.computeIfAbsent(b, k -> new HashSet<>()).add(a);
+        return true;
+    }
+
+    private static void copyMetadata(Note from, Note to) {
+        if (from == to) return;
+        to.setTitle(from.getTitle());
+        to.setDifficulty(from.getDifficulty());
+        to.setKeywords(from.getKeywords());
+        to.setFilePath(from.getFilePath());
+        // Projected notes carry no dates; keep the ones we already have
+        if (from.getCreatedAt() != null) to.setCreatedAt(from.getCreatedAt());
+        if (from.getUpdatedAt() != null) to.setUpdatedAt(from.getUpdatedAt());
+    }
+
+    static String foldCase(String s) {
+        return s.toLowerCase(Locale.ROOT);
     }
 
     public void printGraph() {
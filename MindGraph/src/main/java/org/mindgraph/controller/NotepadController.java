@@ -14,15 +14,24 @@ import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Popup;
 import javafx.util.StringConverter;
 import org.fxmisc.richtext.InlineCssTextArea;
+import org.fxmisc.richtext.model.StyleSpan;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.mindgraph.datastructure.LinkRangeIndex;
+import org.mindgraph.datastructure.TitleMatcher;
 import org.mindgraph.db.NoteDao;
 import org.mindgraph.model.Note;
+import org.mindgraph.util.BackgroundTasks;
 import org.mindgraph.util.KeywordExtractor;
 import org.mindgraph.model.NoteEntry;
+import org.mindgraph.model.SearchHit;
 import org.mindgraph.util.NoteXmlUtil;
+import org.mindgraph.util.SearchIndexBackfill;
 import org.mindgraph.datastructure.Stack;
 import org.mindgraph.model.Note;
 import javafx.geometry.Bounds;
@@ -33,7 +42,11 @@ import java.io.File;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class NotepadController {
     private Stack history = new Stack(); // stack of opened notes
@@ -95,15 +108,23 @@ public class NotepadController {
     private boolean dirty = false;
     private File currentFile = null;
     private Note currentNote = new Note();
+    private long edits = 0;          // bumped on every change, so a finished save knows if it is stale
+    private boolean saving = false;
+    private boolean libraryJob = false; // an import or keyword re-extraction is running
+    private EditorStatusBar statusBar;
 
+    private static final String LINK_STYLE = "-fx-fill: blue; -fx-underline: true;";
     private static final String BOLD = "-fx-font-weight:bold;";
     private static final String ITALIC = "-fx-font-style:italic;";
     private static final String UNDERLINE = "-fx-underline:true;";
 
     private final NoteDao noteDao = new NoteDao("mindgraph.db");
 
-    private record KeywordRange(int start, int end, String keyword) {}
-    private final List<KeywordRange> keywordRanges = new ArrayList<>();
+    // Database, XML and graph work runs here; results come back on the FX thread
+    private final BackgroundTasks tasks = new BackgroundTasks(Platform::runLater);
+
+    // Linked title mentions in the editor → target note; shifted as the text is edited
+    private final LinkRangeIndex<Note> keywordRanges = new LinkRangeIndex<>();
 
     // --- Add this field ---
     private final StudyPlanController studyPlanManager = new StudyPlanController();
@@ -137,8 +158,8 @@ public class NotepadController {
 
         spinnerFont.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(8, 72, 14));
 
-        editor.textProperty().addListener((obs, ov, nv) -> markDirty());
-        editor.caretPositionProperty().addListener((obs, ov, nv) -> updateCaret());
+        // Change events carry only the edit; a textProperty listener would rebuild the whole text per keystroke
+        editor.plainTextChanges().subscribe(change -> markDirty());
 
         editor.sceneProperty().addListener((obs, old, scene) -> {
             if (scene == null) return;
@@ -160,62 +181,42 @@ public class NotepadController {
         lblTitle.setText(currentNote.getTitle());
         txtTitle.setText(currentNote.getTitle());
 
-        updateCounts();
-        updateCaret();
+        statusBar = new EditorStatusBar(editor, lblCursor, lblWords, lblChars);
+
+        // Keep link ranges aligned with the text instead of re-marking on every edit
+        editor.plainTextChanges().subscribe(change -> keywordRanges.edit(
+                change.getPosition(), change.getRemoved().length(), change.getInserted().length()));
 
         editor.setOnMouseClicked(event -> {
-            int pos = editor.getCaretPosition();
-            for (KeywordRange kr : keywordRanges) {
-                if (pos >= kr.start && pos < kr.end) {
-                    String[] parts = kr.keyword.split("\\|\\|");
-                    String keyword = parts[0];
-                    int linkedNoteId = Integer.parseInt(parts[1]);
-
-                    Note linkedNote = graphController.getGraph().getGraphNodes()
-                            .keySet()
-                            .stream()
-                            .filter(n -> n.getId() == linkedNoteId)
-                            .findFirst()
-                            .orElse(null);
+            Note linkedNote = keywordRanges.at(editor.getCaretPosition());
+            if (linkedNote == null || saving) return;
 
-                    if (linkedNote != null) {
-                        if (inRevisionMode) {
-                            if (currentQueueNote != null && currentQueueNote != linkedNote) {
-                                revisionBackStack.push(currentQueueNote);
-                            }
-                            loadNoteInEditor(linkedNote, false);
-                            btnNext.setDisable(true);
-                            btnPrev.setDisable(false);
-                        } else {
-                            loadNoteInEditor(linkedNote, true);
-                        }
-                    }
-                    break;
+            if (inRevisionMode) {
+                if (currentQueueNote != null && currentQueueNote != linkedNote) {
+                    revisionBackStack.push(currentQueueNote);
                 }
+                loadNoteInEditor(linkedNote, false);
+                btnNext.setDisable(true);
+                btnPrev.setDisable(false);
+            } else {
+                loadNoteInEditor(linkedNote, true);
             }
         });
 
         editor.setOnMouseMoved(event -> {
             int pos = editor.hit(event.getX(), event.getY()).getInsertionIndex();
-            boolean overLink = false;
-            for (KeywordRange kr : keywordRanges) {
-                if (pos >= kr.start && pos < kr.end) {
-                    overLink = true;
-                    break;
-                }
-            }
+            boolean overLink = keywordRanges.contains(pos);
             editor.setCursor(overLink ? javafx.scene.Cursor.HAND : javafx.scene.Cursor.TEXT);
         });
 
-        Platform.runLater(() -> {
-            try {
-                graphController.buildGraphFromDb(false);
-                System.out.println("Graph built with " + graphController.getGraph().getGraphNodes().size() + " nodes.");
-            } catch (SQLException e) {
-                showError("Graph Initialization Failed", e.getMessage());
-                e.printStackTrace();
-            }
-        });
+        tasks.run("build graph", () -> {
+            graphController.buildGraphFromDb(false);
+            return graphController.size();
+        }, nodes -> System.out.println("Graph built with " + nodes + " nodes."),
+                e -> showError("Graph Initialization Failed", e.getMessage()));
+
+        // Bodies of notes from before the search index; a no-op once done, resumes if cut short
+        tasks.run("index note bodies", () -> new SearchIndexBackfill(noteDao).run(), null, null);
 
         cmbMode.valueProperty().addListener((obs, oldMode, newMode) -> {
             if ("Revision".equals(newMode)) {
@@ -226,10 +227,6 @@ public class NotepadController {
                     revisionController = new RevisionController();
                 }
 
-                if (graphController.getGraph() != null) {
-                    revisionController.setGraph(graphController.getGraph());
-                }
-
                 loadSessionHistoryFromDB();
                 cmbSessionHistory.setEditable(true);
                 cmbSessionHistory.setItems(sessionHistoryList);
@@ -320,16 +317,18 @@ public class NotepadController {
                     }
                 });
 
-                revisionController.prepareNextNote();
-                currentQueueNote = revisionController.dequeueNextNote();
-                if (currentQueueNote != null) {
-                    loadNoteInEditor(currentQueueNote, false);
-                    btnPrev.setDisable(true);
-                    btnNext.setDisable(!revisionController.hasNotes());
+                if (revisionController.hasNotes()) {
+                    startRevision();
                 } else {
-                    showError("Revision Empty", "No notes available for revision.");
+                    // The study path walks the graph under GraphController's lock; keep it off the FX thread
                     btnPrev.setDisable(true);
                     btnNext.setDisable(true);
+                    tasks.runLatest("revision", "plan revision",
+                            () -> RevisionController.planRevision(graphController), path -> {
+                                if (!inRevisionMode) return;
+                                revisionController.startQueue(path);
+                                startRevision();
+                            }, e -> showError("Revision Error", "Could not build the revision queue: " + e.getMessage()));
                 }
 
             } else {
@@ -366,7 +365,7 @@ public class NotepadController {
 
     @FXML
     public void onNew() {
-        if (!confirmLoseChanges()) return;
+        if (saving || !confirmLoseChanges()) return;
         editor.clear();
         currentFile = null;
         currentNote = new Note();
@@ -379,7 +378,7 @@ public class NotepadController {
 
     @FXML
     public void onOpen() {
-        if (!confirmLoseChanges()) return;
+        if (saving || !confirmLoseChanges()) return;
 
         // Push current note to history for backtracking
         if (currentNote != null) {
@@ -391,121 +390,214 @@ public class NotepadController {
         File f = fc.showOpenDialog(editor.getScene().getWindow());
 
         if (f != null) {
-            try {
+            tasks.runLatest("load", "open " + f.getName(), () -> {
                 Note n = noteDao.findByFilePath(f.getAbsolutePath());
                 if (n == null) n = new Note();
-                NoteXmlUtil.load(n, editor, f);
-                currentNote = n;
-                currentFile = f;
-                lblTitle.setText(n.getTitle());
-                txtTitle.setText(n.getTitle());
-                cmbDifficulty.getSelectionModel().select(String.valueOf(n.getDifficulty()));
-                keywordRanges.clear();
-                markKeywords();
-                clearDirty();
-            } catch (Exception ex) {
-                updateSession(currentNote);
-
-                noteDao.updateSession(currentNote);
-                updateSession(currentNote); // optional, updates title/difficulty
-
-                try {
-                    noteDao.incrementUsageCount(currentNote.getId());
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                    showError("Database Error", "Failed to increment usage count: " + e.getMessage());
-                }
-                loadSessionHistoryFromDB();
+                return new OpenedNote(n, NoteXmlUtil.readForEditor(n, f));
+            }, opened -> {
+                NoteXmlUtil.apply(opened.loaded(), opened.note(), editor);
+                showLoadedNote(opened.note(), f);
+                recordVisit(opened.note());
+            }, e -> showError("Open Failed", e.getMessage()));
+        }
+    }
 
+    /** A note row and its parsed file, produced together off the FX thread */
+    private record OpenedNote(Note note, NoteXmlUtil.LoadedNote loaded) {}
 
-            }
-        }
+    /** Register every note file under a folder, then relink the graph once */
+    @FXML
+    private void onImportFolder() {
+        if (libraryJob) return;
+        DirectoryChooser dc = new DirectoryChooser();
+        dc.setTitle("Import Notes");
+        File folder = dc.showDialog(editor.getScene().getWindow());
+        if (folder == null) return;
+
+        libraryJob = true;
+        tasks.run("import " + folder.getName(), () -> graphController.importFolder(folder), result -> {
+            libraryJob = false;
+            showInfo("Import", result.toString());
+            loadSessionHistoryFromDB();
+        }, e -> {
+            libraryJob = false;
+            showError("Import Failed", e.getMessage());
+        });
     }
 
+    /** Re-extract every note's keywords from its file and rebuild the graph; an interrupted run resumes */
+    @FXML
+    private void onRekeyNotes() {
+        if (libraryJob) return;
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                "Re-extract the keywords of every note from its file? Keywords chosen by hand are replaced.",
+                ButtonType.OK, ButtonType.CANCEL);
+        confirm.setHeaderText("Re-extract Keywords");
+        if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
+
+        libraryJob = true;
+        tasks.run("re-extract keywords", () -> graphController.rekeyNotes(false), result -> {
+            libraryJob = false;
+            showInfo("Re-extract Keywords", result.toString());
+            markKeywords();
+        }, e -> {
+            libraryJob = false;
+            showError("Re-extract Failed", e.getMessage());
+        });
+    }
 
     @FXML
     public void onSave() {
-        try {
-            if(currentNote == null) currentNote = new Note();
-            File f = currentFile;
-            if(f == null){
-                FileChooser fc = new FileChooser();
-                fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("MindGraph XML","*.xml"));
-                f = fc.showSaveDialog(editor.getScene().getWindow());
-                if(f == null) return;
-                currentFile = f;
-            }
-            currentNote.setTitle(txtTitle.getText());
-            currentNote.setDifficulty(parseDifficulty());
-            if(currentNote.getCreatedAt() == null) currentNote.setCreatedAt(LocalDateTime.now());
-            currentNote.setUpdatedAt(LocalDateTime.now());
-
-            List<String> extractedKeywords = KeywordExtractor.extractKeywords(editor.getText());
+        if (saving) return; // the running save finishes first; dirty edits stay marked
+        if(currentNote == null) currentNote = new Note();
+        File f = currentFile;
+        if(f == null){
+            FileChooser fc = new FileChooser();
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("MindGraph XML","*.xml"));
+            f = fc.showSaveDialog(editor.getScene().getWindow());
+            if(f == null) return;
+            currentFile = f;
+        }
+        Note note = currentNote;
+        File target = f;
+        note.setTitle(txtTitle.getText());
+        note.setDifficulty(parseDifficulty());
+        if(note.getCreatedAt() == null) note.setCreatedAt(LocalDateTime.now());
+        note.setUpdatedAt(LocalDateTime.now());
+
+        saving = true; // also holds navigation until the save is written
+        lblSaved.setText("Saving…");
+        // Snapshot the document now: the keyword task and dialog come before the write
+        long snapshot = edits;
+        List<NoteXmlUtil.Paragraph> paragraphs = NoteXmlUtil.paragraphs(editor);
+        String text = editor.getText();
+        tasks.run("extract keywords", () -> {
+            // Offer only the note's DEFAULT_TOP_K (15) most distinctive nouns by TF-IDF, not every noun
+            Map<String, Integer> counts = KeywordExtractor.termFrequencies(text);
+            return KeywordExtractor.topKeywords(counts, noteDao.corpusStats(counts.keySet()), KeywordExtractor.DEFAULT_TOP_K);
+        }, extractedKeywords -> {
             List<String> selectedKeywords = showKeywordSelectionDialog(extractedKeywords);
             if(selectedKeywords == null) selectedKeywords = List.of();
-            currentNote.setKeywords(selectedKeywords);
-
-            NoteXmlUtil.save(currentNote, editor, f);
-            noteDao.upsert(currentNote, f.getAbsolutePath());
-
-            // Refresh editor
-            NoteXmlUtil.load(currentNote, editor, f);
-            keywordRanges.clear();
-            markKeywords();
-
-            lblTitle.setText(txtTitle.getText());
-            clearDirty();
-
-            currentNote.setFilePath(f.getAbsolutePath()); // ensure path is saved
-            noteDao.upsert(currentNote, f.getAbsolutePath());
-
-            updateSession(currentNote);
+            note.setKeywords(selectedKeywords);
+            writeNote(note, target, paragraphs, snapshot);
+        }, e -> saveFailed(e));
+    }
 
-        } catch(Exception ex){
+    /**
+     * Second half of onSave: write the paragraphs snapshotted when the save started to the file,
+     * the database row and the graph links in the background. The saved file is re-read so the
+     * chosen keywords show up linked, unless the user kept typing meanwhile.
+     */
+    private void writeNote(Note note, File target, List<NoteXmlUtil.Paragraph> paragraphs, long snapshot) {
+        String path = target.getAbsolutePath();
+        Note saved = note.copy(); // the task fills in id and path on its own copy; note changes only on the FX thread
 
-            // --- Update the graph ---
+        tasks.run("save " + target.getName(), () -> {
             try {
-                graphController.buildGraphFromDb(true); // rebuild entire graph
-            } catch (SQLException e) {
-                showError("Graph Update Failed", e.getMessage());
-                e.printStackTrace();
+                NoteXmlUtil.write(saved, paragraphs, target);
+                noteDao.upsert(saved, path, NoteXmlUtil.plainText(paragraphs));
+                saved.setFilePath(path);
+                graphController.updateNote(saved); // relink only this note
+            } catch (Exception e) {
+                try {
+                    graphController.updateNote(saved); // relink whatever part of the note was saved
+                } catch (SQLException ge) {
+                    ge.printStackTrace();
+                }
+                throw e;
             }
-        }
+            noteDao.updateSession(saved);
+            return NoteXmlUtil.readForEditor(saved, target);
+        }, loaded -> {
+            saving = false;
+            adoptSaved(saved, note);
+            if (note == currentNote) {
+                lblTitle.setText(note.getTitle());
+                if (edits == snapshot) {
+                    NoteXmlUtil.apply(loaded, note, editor);
+                    markKeywords();
+                    clearDirty();
+                } else {
+                    lblSaved.setText("● Unsaved");
+                }
+            }
+            loadSessionHistoryFromDB();
+        }, e -> {
+            adoptSaved(saved, note); // a row committed before the failure keeps its id, so the next save updates it
+            saveFailed(e);
+        });
     }
 
-    private void markKeywords() {
-        keywordRanges.clear();
-        if (currentNote == null) return;
-
-        String content = editor.getText();
-
-        // Get neighbors of the current note
-        List<Note> neighbors = graphController.getGraph().getNeighbours(currentNote);
-        if (neighbors == null || neighbors.isEmpty()) return;
+    /** Take over what the save task assigned: the row id and the file path */
+    private static void adoptSaved(Note saved, Note note) {
+        note.setId(saved.getId());
+        note.setFilePath(saved.getFilePath());
+    }
 
-        for (Note neighbor : neighbors) {
-            String neighborTitle = neighbor.getTitle();
-            if (neighborTitle == null || neighborTitle.isBlank()) continue;
+    /** Let running saves finish, then write out the graph; called once when the app exits */
+    public void shutdown() {
+        tasks.shutdown();
+        graphController.close();
+    }
 
-            // Regex for case-insensitive + optional plural ('s' or 'es')
-            String regex = "\\b" + neighborTitle + "(?:s|es)?\\b";
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(regex, java.util.regex.Pattern.CASE_INSENSITIVE);
-            java.util.regex.Matcher matcher = pattern.matcher(content);
+    private void saveFailed(Exception e) {
+        saving = false;
+        lblSaved.setText(dirty ? "● Unsaved" : "Saved");
+        showError("Save Failed", e.getMessage());
+    }
 
-            while (matcher.find()) {
-                int start = matcher.start();
-                int end = matcher.end();
+    /**
+     * Link every mention of a neighbour's title (plurals included) in one pass over the text,
+     * then restyle the whole document with a single span update. The neighbours and the title
+     * matcher come from GraphController under its lock, which a graph build or import holds for
+     * its whole run, so they are fetched and matched in the background. Links found for a text
+     * that has since changed would be misplaced; they are dropped and the next load or save marks again.
+     */
+    private void markKeywords() {
+        keywordRanges.clear();
+        Note note = currentNote;
+        if (note == null) return;
 
-                // Add to keywordRanges with noteId
-                keywordRanges.add(new KeywordRange(start, end, neighborTitle + "||" + neighbor.getId()));
+        long snapshot = edits;
+        String text = editor.getText();
+        tasks.runLatest("links", "mark links", () -> {
+            // Get neighbors of the current note
+            Set<Note> linkable = new HashSet<>(graphController.getNeighbours(note));
+            if (linkable.isEmpty()) return List.<TitleMatcher.Match<Note>>of();
+            return graphController.getTitleMatcher().findAll(text, linkable::contains);
+        }, links -> {
+            if (note != currentNote || edits != snapshot || links.isEmpty()) return;
+            for (TitleMatcher.Match<Note> link : links) {
+                keywordRanges.add(link.start(), link.end(), link.value());
+            }
+            editor.setStyleSpans(0, withLinkStyle(editor.getStyleSpans(0, editor.getLength()), links));
+        }, null);
+    }
 
-                // Apply link style
-                editor.setStyle(start, end, mergeStyle(
-                        editor.getStyleOfChar(start),
-                        "-fx-fill: blue; -fx-underline: true;"
-                ));
+    /** The given spans with the link style merged into every linked range; links are sorted and disjoint */
+    private StyleSpans<String> withLinkStyle(StyleSpans<String> base, List<TitleMatcher.Match<Note>> links) {
+        Map<String, String> linked = new HashMap<>(); // base style → merged style
+        StyleSpansBuilder<String> spans = new StyleSpansBuilder<>(base.getSpanCount() + 2 * links.size());
+        int pos = 0;
+        int li = 0;
+        for (StyleSpan<String> span : base) {
+            int spanEnd = pos + span.getLength();
+            while (pos < spanEnd) {
+                while (li < links.size() && links.get(li).end() <= pos) li++;
+                int next;
+                String style;
+                if (li < links.size() && links.get(li).start() <= pos) {
+                    next = Math.min(spanEnd, links.get(li).end());
+                    style = linked.computeIfAbsent(span.getStyle(), s -> mergeStyle(s, LINK_STYLE));
+                } else {
+                    next = li < links.size() ? Math.min(spanEnd, links.get(li).start()) : spanEnd;
+                    style = span.getStyle();
+                }
+                spans.add(style, next - pos);
+                pos = next;
             }
         }
+        return spans.create();
     }
 
     @FXML
@@ -527,11 +619,32 @@ public class NotepadController {
                 editor.selectRange(index, index + searchText.length());
                 editor.requestFocus();
             } else {
+                findInOtherNotes(searchText);
+            }
+        });
+    }
+
+    /** Search the other notes in the background, then offer the best full-text matches */
+    private void findInOtherNotes(String searchText) {
+        int currentId = currentNote != null ? currentNote.getId() : 0;
+        tasks.runLatest("search", "search notes", () -> noteDao.search(searchText, 20).stream()
+                .filter(h -> h.getNoteId() != currentId)
+                .toList(), hits -> {
+            if (hits.isEmpty()) {
                 Alert alert = new Alert(Alert.AlertType.INFORMATION, "Text not found!", ButtonType.OK);
                 alert.setHeaderText("Find");
                 alert.showAndWait();
+                return;
             }
-        });
+
+            ChoiceDialog<SearchHit> choice = new ChoiceDialog<>(hits.get(0), hits);
+            choice.setTitle("Find");
+            choice.setHeaderText("Not in this note. Found in " + hits.size() + " other note(s):");
+            choice.setContentText("Open:");
+            choice.showAndWait().ifPresent(hit -> tasks.runLatest("load", "open search hit",
+                    () -> noteDao.load(hit.getNoteId()), note -> loadNoteInEditor(note, true),
+                    e -> showError("Load Failed", e.getMessage())));
+        }, e -> showError("Search Failed", e.getMessage()));
     }
 
     @FXML
@@ -612,7 +725,8 @@ public class NotepadController {
 
         Dialog<List<String>> dialog = new Dialog<>();
         dialog.setTitle("Select Keywords");
-        dialog.setHeaderText("Choose keywords to save with this note");
+        dialog.setHeaderText("Choose keywords to save with this note\n(its " + keywords.size()
+                + " most distinctive nouns; rarer words across your notes rank first)");
 
         ButtonType okButtonType = new ButtonType("Save", ButtonBar.ButtonData.OK_DONE);
         dialog.getDialogPane().getButtonTypes().addAll(okButtonType, ButtonType.CANCEL);
@@ -686,15 +800,14 @@ public class NotepadController {
     }
 
     private void markDirty() {
+        edits++;
         dirty = true;
         lblSaved.setText("● Unsaved");
-        updateCounts();
     }
 
     private void clearDirty() {
         dirty = false;
         lblSaved.setText("Saved");
-        updateCounts();
     }
 
     private boolean confirmLoseChanges() {
@@ -704,18 +817,10 @@ public class NotepadController {
         return a.showAndWait().orElse(ButtonType.NO) == ButtonType.YES;
     }
 
-    private void updateCounts() {
-        String text = editor.getText();
-        lblChars.setText("Chars: " + text.length());
-        lblWords.setText("Words: " + (text.isBlank() ? 0 : text.trim().split("\\s+").length));
-    }
-
-    private void updateCaret() {
-        int caret = editor.getCaretPosition();
-        String upToCaret = editor.getText().substring(0, Math.min(caret, editor.getLength()));
-        int line = upToCaret.split("\n", -1).length;
-        int col = upToCaret.length() - upToCaret.lastIndexOf('\n');
-        lblCursor.setText("Ln " + line + ", Col " + col);
+    private void showInfo(String title, String msg) {
+        Alert a = new Alert(Alert.AlertType.INFORMATION, msg, ButtonType.OK);
+        a.setHeaderText(title);
+        a.showAndWait();
     }
 
     private void showError(String title, String msg) {
@@ -737,6 +842,7 @@ public class NotepadController {
     }
 
     public void onPrev(ActionEvent actionEvent) {
+        if (saving) return; // navigation waits for the running save
         if (!inRevisionMode) {
             // Normal backtracking from history
             if (history.isEmpty()) {
@@ -765,6 +871,7 @@ public class NotepadController {
     }
 
     public void onNext(ActionEvent actionEvent) {
+        if (saving) return;
         if (inRevisionMode) {
             Note nextNote = revisionController.dequeueNextNote();
             if (nextNote != null) {
@@ -778,26 +885,35 @@ public class NotepadController {
         }
     }
 
+    /** Open the first note of the revision queue */
+    private void startRevision() {
+        if (saving) {
+            btnNext.setDisable(!revisionController.hasNotes()); // Next opens the first note once the save is done
+            return;
+        }
+        currentQueueNote = revisionController.dequeueNextNote();
+        if (currentQueueNote != null) {
+            loadNoteInEditor(currentQueueNote, false);
+            btnPrev.setDisable(true);
+            btnNext.setDisable(!revisionController.hasNotes());
+        } else {
+            showError("Revision Empty", "No notes available for revision.");
+            btnPrev.setDisable(true);
+            btnNext.setDisable(true);
+        }
+    }
+
     private void loadSessionHistoryFromDB() {
-        String sortMode = cmbSessionSort.getValue();
-        if (sortMode == null) sortMode = "Newest";
+        String sortMode = cmbSessionSort.getValue() != null ? cmbSessionSort.getValue() : "Newest";
 
-        try {
-            List<Note> historyNotes = noteDao.getSessionHistory(sortMode);
+        tasks.runLatest("history", "load session history", () -> noteDao.getSessionHistory(sortMode), historyNotes -> {
             sessionHistoryList.setAll(historyNotes);
 
             // Always reset to show all items
             cmbSessionHistory.setItems(sessionHistoryList);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("Load Error", "Could not load session history: " + e.getMessage());
-        }
+        }, e -> showError("Load Error", "Could not load session history: " + e.getMessage()));
     }
 
-
-
-
     @FXML
     private void onLoadHistory() {
         Object selected = cmbSessionHistory.getValue();
@@ -834,7 +950,7 @@ public class NotepadController {
     }
 
     private void loadSelectedNote(Note selected) {
-        if (selected == null) return;
+        if (selected == null || saving) return;
 
         // Push current note to history for backtracking
         if (currentNote != null) {
@@ -845,33 +961,36 @@ public class NotepadController {
         loadNoteInEditor(selected, false);
 
         // Increment usage count safely
-        try {
+        tasks.run("count usage", () -> {
             noteDao.incrementUsageCount(selected.getId());
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            showError("Database error", "Could not update usage count.");
-        }
+            return null;
+        }, null, e -> showError("Database error", "Could not update usage count."));
 
         // Clear the editor text after successful load in session history combo
         Platform.runLater(() -> cmbSessionHistory.getEditor().clear());
     }
     private void saveSession(Note note) {
-        try {
+        tasks.run("save session", () -> {
             noteDao.saveSession(note); // define in NoteDao
-            loadSessionHistoryFromDB(); // refresh dropdown
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            return null;
+        }, done -> loadSessionHistoryFromDB(), null); // refresh dropdown
     }
 
     private void updateSession(Note note) {
-        try {
+        tasks.run("update session", () -> {
             noteDao.updateSession(note);
-            loadSessionHistoryFromDB();
+            return null;
+        }, done -> loadSessionHistoryFromDB(), null);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    /** An opened file goes to the top of the session history and counts as one more use */
+    private void recordVisit(Note note) {
+        tasks.run("record visit", () -> {
+            noteDao.updateSession(note);
+            noteDao.incrementUsageCount(note.getId());
+            return null;
+        }, done -> loadSessionHistoryFromDB(),
+                e -> showError("Database Error", "Failed to increment usage count: " + e.getMessage()));
     }
 
     private void setupSuggestionPopup() {
@@ -943,26 +1062,39 @@ public class NotepadController {
     private void refreshStudyPlanCombo() {
         cmbStudyPlan.setItems(FXCollections.observableArrayList(studyPlanManager.getPlan()));
     }
-    private void loadNoteInEditor(Note note, boolean pushToHistory) {
-        if (note == null) return;
+    /** Callers check saving first: a save in progress keeps the editor on its note */
+    private void loadNoteInEditor(Note shared, boolean pushToHistory) {
+        if (shared == null || saving) return;
+        Note note = shared.copy(); // graph instances are only changed by GraphController, under its lock
 
         if (pushToHistory && currentNote != null) {
             history.push(currentNote); // only push when explicitly loading new note
         }
 
-        currentNote = note;
-        currentFile = (note.getFilePath() != null && !note.getFilePath().isBlank()) ? new File(note.getFilePath()) : null;
+        File file = (note.getFilePath() != null && !note.getFilePath().isBlank()) ? new File(note.getFilePath()) : null;
 
-        if (currentFile != null && currentFile.exists()) {
-            try {
-                NoteXmlUtil.load(note, editor, currentFile);
-            } catch (Exception e) {
-                showError("Load Failed", e.getMessage());
-            }
-        } else {
+        if (file == null || !file.exists()) {
+            tasks.cancel("load"); // an older load must not overwrite this one
             editor.clear();
+            showLoadedNote(note, file);
+            return;
         }
 
+        // Parse and build the styled document off the FX thread, then swap it in with one replace.
+        // Navigating again before it finishes cancels this load.
+        tasks.runLatest("load", "load " + file.getName(), () -> NoteXmlUtil.readForEditor(note, file), loaded -> {
+            NoteXmlUtil.apply(loaded, note, editor);
+            showLoadedNote(note, file);
+        }, e -> {
+            showError("Load Failed", e.getMessage());
+            editor.clear();
+            showLoadedNote(note, file);
+        });
+    }
+
+    private void showLoadedNote(Note note, File file) {
+        currentNote = note;
+        currentFile = file;
         lblTitle.setText(note.getTitle());
         txtTitle.setText(note.getTitle());
         cmbDifficulty.getSelectionModel().select(String.valueOf(note.getDifficulty()));
@@ -970,4 +1102,4 @@ public class NotepadController {
         markKeywords();
         clearDirty();
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,12 @@
 package org.mindgraph.controller;
 
-import org.fxmisc.richtext.InlineCssTextArea;
-import org.mindgraph.datastructure.Graph;
 import org.mindgraph.datastructure.Queue;
 import org.mindgraph.model.Note;
 import org.mindgraph.util.NoteXmlUtil;
 
 import java.io.File;
 import java.io.Serializable;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -17,7 +15,6 @@ import java.util.List;
 public class RevisionController implements Serializable {
     private static final long serialVersionUID = 1L;
     private Queue revisionQueue;
-    private Graph graph; // Reference to graph-based study path
     private static final File PATH_FILE = new File("revisionPath.dat");
 
     public RevisionController() {
@@ -26,10 +23,6 @@ public class RevisionController implements Serializable {
         if (revisionQueue == null) revisionQueue = new Queue();
     }
 
-    public void setGraph(Graph graph) {
-        this.graph = graph;
-    }
-
     /**
      * Returns true if there are notes in the revision queue.
      */
@@ -65,56 +58,54 @@ public class RevisionController implements Serializable {
         saveQueue(revisionQueue, PATH_FILE);
     }
 
+    // ---------------- Core Queue Builder ----------------
+
     /**
-     * Prepare the revision queue, either from the graph or fallback folder scan.
+     * Notes for a new revision queue: the graph's study path, or the notes folder if the graph is empty.
+     * Reads the graph only through GraphController's lock and leaves the queue alone,
+     * so it can run on a background task; hand the result to startQueue on the FX thread.
      */
-    public void prepareNextNote() {
-        if (hasNotes()) return;
-        buildRevisionQueue();
+    public static List<Note> planRevision(GraphController graphController) {
+        List<Note> path = graphController.getStudyPath();
+        return !path.isEmpty() ? path : loadNotesFromFolder();
     }
 
-    // ---------------- Core Queue Builder ----------------
-    private void buildRevisionQueue() {
+    /** Replace the revision queue with the planned notes, in order */
+    public void startQueue(List<Note> notes) {
         revisionQueue.clear();
-
-        // Use graph if available
-        if (graph != null && !graph.getGraphNodes().isEmpty()) {
-            Note startNote = graph.getGraphNodes().keySet().stream()
-                    .min(Comparator.comparingInt(Note::getDifficulty))
-                    .orElse(null);
-
-            if (startNote != null) {
-                List<Note> path = graph.getStudyPath(startNote);
-                for (Note note : path) revisionQueue.enqueue(note);
-            }
-        }
-
-        // Fallback: load from notes folder if empty
-        if (revisionQueue.isEmpty()) {
-            loadNotesFromFolder();
-        }
-
+        for (Note note : notes) revisionQueue.enqueue(note);
         saveQueue(revisionQueue, PATH_FILE);
     }
 
-    private void loadNotesFromFolder() {
+    /**
+     * Fallback queue from the notes folder: only each file's metadata header is read,
+     * in parallel, and no JavaFX control is involved, so this also works headless.
+     */
+    private static List<Note> loadNotesFromFolder() {
         File folder = new File("notes");
-        if (!folder.exists() || !folder.isDirectory()) return;
+        if (!folder.exists() || !folder.isDirectory()) return List.of();
 
         File[] files = folder.listFiles((dir, name) -> name.endsWith(".rnote"));
-        if (files == null) return;
-
-        InlineCssTextArea tempArea = new InlineCssTextArea();
-        for (File f : files) {
-            try {
-                Note note = new Note();
-                NoteXmlUtil.load(note, tempArea, f);
-                if (note.getDifficulty() >= 2 && note.getFilePath() != null) {
-                    revisionQueue.enqueue(note);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        if (files == null) return List.of();
+
+        long startNanos = System.nanoTime();
+        List<Note> notes = Arrays.stream(files)
+                .parallel()
+                .map(RevisionController::readHeader)
+                .filter(note -> note != null && note.getDifficulty() >= 2) // readHeader always sets the path
+                .toList(); // keeps the folder order
+
+        System.out.println("Scanned " + files.length + " note headers (" + notes.size() + " queued) in "
+                + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+        return notes;
+    }
+
+    private static Note readHeader(File f) {
+        try {
+            return NoteXmlUtil.readHeader(f);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
         }
     }
 
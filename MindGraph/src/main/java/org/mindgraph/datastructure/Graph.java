@@ -1,55 +1,179 @@
 package org.mindgraph.datastructure;
 
+import org.mindgraph.model.KeywordInterner;
 import org.mindgraph.model.Note;
 
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+/**
+ * Note graph facade. Nodes are keyed by note id in a primitive {@link IntGraph};
+ * the Note objects are kept in an array aligned with the IntGraph slots.
+ * Big-O: createEdge/removeEdge/containsEdge O(1), removeNode O(degree).
+ */
 public class Graph implements Serializable {
     @Serial
-    private static final long serialVersionUID = 1L;
-    private final Map<Note, List<Note>> notesGraph;
+    private static final long serialVersionUID = 2L;
+    private final IntGraph core;
+    private Note[] notesBySlot;
+
+    // Derived study-path data, valid while its version matches the graph version
+    private transient long version = 0;
+    private transient List<Edge> weightedEdges;
+    private transient long weightedEdgesVersion;
+    private transient List<Edge> mst;
+    private transient Map<Note, List<Edge>> mstTree;
+    private transient long mstVersion;
+    private transient Map<Note, List<Note>> studyPaths;
+    private transient long studyPathsVersion;
+
+    private static final int PARALLEL_PATH_THRESHOLD = 10_000; // nodes
+    private static final int PARALLEL_MST_THRESHOLD = 50_000;  // edges
+    private static final Comparator<Edge> BY_WEIGHT = Comparator.comparingDouble(e -> e.weight);
+    private static final Comparator<Note> EASIEST_FIRST =
+            Comparator.comparingInt(Note::getDifficulty).thenComparingInt(Note::getId);
 
     public Graph() {
-        this.notesGraph = new HashMap<>();
+        this.core = new IntGraph();
+        this.notesBySlot = new Note[16];
     }
 
     // ---------------- Basic Graph ----------------
     public void addNote(Note note) {
-        notesGraph.computeIfAbsent(note, k -> new ArrayList<>());
+        if (core.containsNode(note.getId())) return;
+        slotFor(note);
+        // An isolated node leaves the spanning forest as it is
+        boolean mstCurrent = isCurrent(mst, mstVersion);
+        boolean edgesCurrent = isCurrent(weightedEdges, weightedEdgesVersion);
+        version++;
+        if (mstCurrent) mstVersion = version;
+        if (edgesCurrent) weightedEdgesVersion = version;
     }
 
     public void removeNode(Note note) {
-        notesGraph.values().forEach(neighbours -> neighbours.remove(note));
-        notesGraph.remove(note);
+        int slot = core.slotOf(note.getId());
+        if (slot < 0) return;
+        core.removeNode(note.getId());
+        notesBySlot[slot] = null;
+        invalidate();
     }
 
     public void createEdge(Note baseNote, Note linkNote) {
         addNote(baseNote);
         addNote(linkNote);
-        List<Note> neighbours = notesGraph.get(baseNote);
-        if (!neighbours.contains(linkNote)) neighbours.add(linkNote);
+        if (!core.addEdge(baseNote.getId(), linkNote.getId())) return;
+
+        boolean mstCurrent = isCurrent(mst, mstVersion);
+        boolean edgesCurrent = isCurrent(weightedEdges, weightedEdgesVersion);
+        version++;
+        // Bulk loads and rebuilds have no live cache: skip the weight and the Edge until one is asked for
+        if (!mstCurrent && !edgesCurrent) return;
+
+        Note from = getNote(baseNote.getId());
+        Note to = getNote(linkNote.getId());
+        Edge edge = new Edge(from, to, calculateWeight(from, to));
+        if (edgesCurrent) {
+            weightedEdges.add(edge);
+            weightedEdgesVersion = version;
+        }
+        if (mstCurrent) {
+            insertIntoMst(edge);
+            mstVersion = version;
+        }
     }
 
     public void removeEdge(Note baseNote, Note linkNote) {
-        notesGraph.getOrDefault(baseNote, Collections.emptyList()).remove(linkNote);
+        if (core.removeEdge(baseNote.getId(), linkNote.getId())) invalidate();
+    }
+
+    /**
+     * Drop cached weights, spanning tree and study paths.
+     * Structural changes do this automatically; call it after changing a note's
+     * keywords or difficulty, which the edge weights depend on.
+     */
+    public void invalidate() {
+        version++;
     }
 
+    /** Incremented on every change that can affect weights, the MST or study paths */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Snapshot of note → neighbours; changes to it do not affect the graph */
     public Map<Note, List<Note>> getGraphNodes() {
-        return notesGraph;
+        Map<Note, List<Note>> nodes = new LinkedHashMap<>(core.nodeCount() * 2);
+        for (int slot = 0; slot < core.slotLimit(); slot++) {
+            if (core.isLive(slot)) nodes.put(notesBySlot[slot], neighboursOf(slot));
+        }
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    /** All notes in the graph */
+    public List<Note> getNotes() {
+        List<Note> notes = new ArrayList<>(core.nodeCount());
+        for (int slot = 0; slot < core.slotLimit(); slot++) {
+            if (core.isLive(slot)) notes.add(notesBySlot[slot]);
+        }
+        return notes;
+    }
+
+    public int size() {
+        return core.nodeCount();
+    }
+
+    public int edgeCount() {
+        return core.edgeCount();
+    }
+
+    public boolean isEmpty() {
+        return core.nodeCount() == 0;
     }
 
     public List<Note> getNeighbours(Note note) {
-        return notesGraph.getOrDefault(note, List.of());
+        int slot = core.slotOf(note.getId());
+        return slot < 0 ? List.of() : neighboursOf(slot);
+    }
+
+    /** Notes that link to the given note */
+    public List<Note> getIncoming(Note note) {
+        int slot = core.slotOf(note.getId());
+        if (slot < 0) return List.of();
+        List<Note> sources = new ArrayList<>(core.inSlots(slot).size());
+        core.inSlots(slot).forEach(s -> sources.add(notesBySlot[s]));
+        return sources;
+    }
+
+    /** The instance stored in the graph for this id, or null if absent */
+    public Note getNote(int id) {
+        int slot = core.slotOf(id);
+        return slot < 0 ? null : notesBySlot[slot];
     }
 
     public boolean containsNote(Note note) {
-        return notesGraph.containsKey(note);
+        return core.containsNode(note.getId());
     }
 
     public boolean containsEdge(Note from, Note to) {
-        return notesGraph.containsKey(from) && notesGraph.get(from).contains(to);
+        return core.containsEdge(from.getId(), to.getId());
+    }
+
+    private int slotFor(Note note) {
+        int slot = core.addNode(note.getId());
+        if (slot >= notesBySlot.length) {
+            notesBySlot = Arrays.copyOf(notesBySlot, Math.max(slot + 1, notesBySlot.length * 2));
+        }
+        if (notesBySlot[slot] == null) notesBySlot[slot] = note;
+        return slot;
+    }
+
+    private List<Note> neighboursOf(int slot) {
+        List<Note> neighbours = new ArrayList<>(core.outSlots(slot).size());
+        core.outSlots(slot).forEach(s -> neighbours.add(notesBySlot[s]));
+        return neighbours;
     }
 
     // ---------------- Study Path Features ----------------
@@ -67,90 +191,214 @@ public class Graph implements Serializable {
         }
     }
 
-    // Get weighted edges based on keyword similarity and difficulty
+    // Get weighted edges based on keyword similarity and difficulty; a copy, as createEdge appends to the cache
     public List<Edge> getWeightedEdges() {
-        List<Edge> edges = new ArrayList<>();
-        for (Map.Entry<Note, List<Note>> entry : notesGraph.entrySet()) {
-            Note from = entry.getKey();
-            for (Note to : entry.getValue()) {
-                double weight = calculateWeight(from, to);
-                edges.add(new Edge(from, to, weight));
+        return List.copyOf(weightedEdges());
+    }
+
+    // The cached weighted edges, recomputed when the version moved on
+    private List<Edge> weightedEdges() {
+        if (!isCurrent(weightedEdges, weightedEdgesVersion)) {
+            weightedEdges = computeWeightedEdges();
+            weightedEdgesVersion = version;
+        }
+        return weightedEdges;
+    }
+
+    private List<Edge> computeWeightedEdges() {
+        int[] from = new int[core.edgeCount()];
+        int[] to = new int[core.edgeCount()];
+        int n = 0;
+        for (int slot = 0; slot < core.slotLimit(); slot++) {
+            if (!core.isLive(slot)) continue;
+            for (int t : core.outSlots(slot).toArray()) {
+                from[n] = slot;
+                to[n++] = t;
             }
         }
-        return edges;
+
+        Edge[] edges = new Edge[n];
+        IntStream range = IntStream.range(0, n);
+        if (n >= PARALLEL_MST_THRESHOLD) range = range.parallel();
+        range.forEach(i -> {
+            Note a = notesBySlot[from[i]];
+            Note b = notesBySlot[to[i]];
+            edges[i] = new Edge(a, b, calculateWeight(a, b));
+        });
+        return new ArrayList<>(Arrays.asList(edges));
     }
 
     // Weight: lower = better
     private double calculateWeight(Note n1, Note n2) {
-        Set<String> commonKeywords = new HashSet<>(n1.getKeywords());
-        commonKeywords.retainAll(n2.getKeywords());
-        double similarity = commonKeywords.size();
+        double similarity = KeywordInterner.countCommon(n1.getKeywordIds(), n2.getKeywordIds());
         double difficultyDiff = Math.abs(n1.getDifficulty() - n2.getDifficulty());
         return difficultyDiff - similarity; // lower = more similar & closer difficulty
     }
 
     // ---------------- Kruskal MST ----------------
     public List<Edge> getMinimumSpanningTree() {
-        List<Edge> edges = getWeightedEdges();
-        edges.sort(Comparator.comparingDouble(e -> e.weight));
+        ensureMst();
+        return List.copyOf(mst);
+    }
+
+    /**
+     * Kruskal over node slots with an array-backed union-find.
+     * From PARALLEL_MST_THRESHOLD edges on, weights are computed and the edges sorted in
+     * parallel; the union-find sweep itself stays sequential since it is near-linear.
+     */
+    private void ensureMst() {
+        if (isCurrent(mst, mstVersion)) return;
+
+        Edge[] edges = weightedEdges().toArray(new Edge[0]);
+        if (edges.length >= PARALLEL_MST_THRESHOLD) {
+            Arrays.parallelSort(edges, BY_WEIGHT);
+        } else {
+            Arrays.sort(edges, BY_WEIGHT);
+        }
 
-        UnionFind uf = new UnionFind(notesGraph.keySet());
-        List<Edge> mst = new ArrayList<>();
+        UnionFind uf = new UnionFind(core.slotLimit());
+        mst = new ArrayList<>(Math.max(size() - 1, 0));
+        mstTree = new HashMap<>();
 
         for (Edge e : edges) {
-            if (uf.union(e.from, e.to)) {
+            if (uf.union(core.slotOf(e.from.getId()), core.slotOf(e.to.getId()))) {
                 mst.add(e);
+                linkInTree(e);
+                if (mst.size() == size() - 1) break; // spanning tree complete
             }
         }
-        return mst;
+        mstVersion = version;
     }
 
-    // ---------------- Generate Study Path ----------------
-    public List<Note> getStudyPath(Note start) {
-        List<Edge> mst = getMinimumSpanningTree();
-        Map<Note, List<Note>> tree = new HashMap<>();
+    /**
+     * Keep the spanning forest minimal after adding one edge: join two trees directly,
+     * otherwise swap out the heaviest edge on the tree path between the endpoints
+     * if the new edge is lighter. O(size of the affected tree) instead of a full rebuild.
+     */
+    private void insertIntoMst(Edge edge) {
+        if (edge.from.equals(edge.to)) return;
 
-        // Build adjacency list from MST
-        for (Edge e : mst) {
-            tree.computeIfAbsent(e.from, k -> new ArrayList<>()).add(e.to);
-            tree.computeIfAbsent(e.to, k -> new ArrayList<>()).add(e.from);
+        Map<Note, Edge> parentEdge = new HashMap<>();
+        Deque<Note> stack = new ArrayDeque<>();
+        parentEdge.put(edge.from, null);
+        stack.push(edge.from);
+        while (!stack.isEmpty() && !parentEdge.containsKey(edge.to)) {
+            Note current = stack.pop();
+            for (Edge e : mstTree.getOrDefault(current, List.of())) {
+                Note next = e.from.equals(current) ? e.to : e.from;
+                if (parentEdge.containsKey(next)) continue;
+                parentEdge.put(next, e);
+                stack.push(next);
+            }
         }
 
-        List<Note> path = new ArrayList<>();
-        Set<Note> visited = new HashSet<>();
-        dfs(start, tree, visited, path);
-        return path;
+        if (!parentEdge.containsKey(edge.to)) { // different trees: the edge joins them
+            mst.add(edge);
+            linkInTree(edge);
+            return;
+        }
+
+        Edge heaviest = null;
+        for (Note n = edge.to; !n.equals(edge.from); ) {
+            Edge e = parentEdge.get(n);
+            if (heaviest == null || e.weight > heaviest.weight) heaviest = e;
+            n = e.from.equals(n) ? e.to : e.from;
+        }
+        if (heaviest != null && edge.weight < heaviest.weight) {
+            mst.remove(heaviest);
+            mstTree.get(heaviest.from).remove(heaviest);
+            mstTree.get(heaviest.to).remove(heaviest);
+            mst.add(edge);
+            linkInTree(edge);
+        }
+    }
+
+    private void linkInTree(Edge e) {
+        mstTree.computeIfAbsent(e.from, k -> new ArrayList<>()).add(e);
+        mstTree.computeIfAbsent(e.to, k -> new ArrayList<>()).add(e);
     }
 
-    private void dfs(Note current, Map<Note, List<Note>> tree, Set<Note> visited, List<Note> path) {
-        visited.add(current);
-        path.add(current);
-        for (Note n : tree.getOrDefault(current, List.of())) {
-            if (!visited.contains(n)) dfs(n, tree, visited, path);
+    private boolean isCurrent(Object cached, long cachedVersion) {
+        return cached != null && cachedVersion == version;
+    }
+
+    // ---------------- Generate Study Path ----------------
+
+    /**
+     * Study order over the whole graph: the start note's tree of the spanning forest first,
+     * then every other tree starting from its easiest note, trees ordered by that difficulty.
+     * Within a tree, easier neighbours are visited first. Traversal is iterative, and large
+     * forests have their trees walked in parallel on the common fork-join pool.
+     * Returns a fresh mutable list; the cached path itself is not exposed.
+     */
+    public List<Note> getStudyPath(Note start) {
+        if (studyPaths == null || studyPathsVersion != version) {
+            studyPaths = new HashMap<>();
+            studyPathsVersion = version;
         }
+        List<Note> cached = studyPaths.get(start);
+        if (cached != null) return new ArrayList<>(cached);
+
+        ensureMst();
+        List<Note> roots = componentRoots(start);
+        Stream<Note> rootStream = size() >= PARALLEL_PATH_THRESHOLD && roots.size() > 1
+                ? roots.parallelStream()
+                : roots.stream();
+        List<List<Note>> parts = rootStream.map(this::traverseTree).toList(); // keeps root order
+
+        List<Note> path = new ArrayList<>(Math.max(size(), 1));
+        if (!containsNote(start)) path.add(start);
+        for (List<Note> part : parts) path.addAll(part);
+
+        studyPaths.put(start, path);
+        return new ArrayList<>(path);
     }
 
-    // ---------------- Union-Find Helper ----------------
-    private static class UnionFind {
-        private final Map<Note, Note> parent = new HashMap<>();
+    /** One entry note per tree of the spanning forest: start's tree first, the rest easiest-first */
+    private List<Note> componentRoots(Note start) {
+        UnionFind uf = new UnionFind(core.slotLimit());
+        for (Edge e : mst) uf.union(core.slotOf(e.from.getId()), core.slotOf(e.to.getId()));
 
-        public UnionFind(Set<Note> notes) {
-            for (Note n : notes) parent.put(n, n);
+        Map<Integer, Note> easiestByRoot = new HashMap<>();
+        for (int slot = 0; slot < core.slotLimit(); slot++) {
+            if (!core.isLive(slot)) continue;
+            easiestByRoot.merge(uf.find(slot), notesBySlot[slot],
+                    (a, b) -> EASIEST_FIRST.compare(a, b) <= 0 ? a : b);
         }
 
-        public Note find(Note n) {
-            if (parent.get(n) != n) {
-                parent.put(n, find(parent.get(n))); // path compression
-            }
-            return parent.get(n);
+        List<Note> roots = new ArrayList<>(easiestByRoot.size());
+        int startSlot = core.slotOf(start.getId());
+        if (startSlot >= 0) {
+            roots.add(notesBySlot[startSlot]);
+            easiestByRoot.remove(uf.find(startSlot));
         }
+        List<Note> others = new ArrayList<>(easiestByRoot.values());
+        others.sort(EASIEST_FIRST);
+        roots.addAll(others);
+        return roots;
+    }
+
+    /** Iterative preorder DFS over one tree of the spanning forest (read-only, thread-safe) */
+    private List<Note> traverseTree(Note root) {
+        List<Note> path = new ArrayList<>();
+        Set<Note> visited = new HashSet<>();
+        Deque<Note> stack = new ArrayDeque<>();
+        stack.push(root);
+
+        List<Note> children = new ArrayList<>();
+        while (!stack.isEmpty()) {
+            Note current = stack.pop();
+            if (!visited.add(current)) continue;
+            path.add(current);
 
-        public boolean union(Note a, Note b) {
-            Note rootA = find(a);
-            Note rootB = find(b);
-            if (rootA == rootB) return false;
-            parent.put(rootA, rootB);
-            return true;
+            children.clear();
+            for (Edge e : mstTree.getOrDefault(current, List.of())) {
+                Note n = e.from.equals(current) ? e.to : e.from;
+                if (!visited.contains(n)) children.add(n);
+            }
+            children.sort(EASIEST_FIRST);
+            for (int i = children.size() - 1; i >= 0; i--) stack.push(children.get(i)); // easiest on top
         }
+        return path;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package org.mindgraph.datastructure;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Directed graph over int node ids with primitive adjacency.
+ * Every node gets a dense slot; out- and in-edges are kept as IntHashSets of slots,
+ * so edge checks are O(1) and removing a node is O(degree).
+ * Slots of removed nodes are reused, so callers iterating [0, slotLimit()) must skip
+ * slots where isLive() is false.
+ */
+public class IntGraph implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final IntIntHashMap slotById = new IntIntHashMap();
+    private int[] ids = new int[16];
+    private IntHashSet[] out = new IntHashSet[16];
+    private IntHashSet[] in = new IntHashSet[16];
+    private int slotLimit = 0;
+    private int[] freeSlots = new int[8];
+    private int freeCount = 0;
+    private int nodeCount = 0;
+    private int edgeCount = 0;
+
+    /** Add a node if missing and return its slot */
+    public int addNode(int id) {
+        int slot = slotById.get(id);
+        if (slot != IntIntHashMap.MISSING) return slot;
+
+        slot = freeCount > 0 ? freeSlots[--freeCount] : slotLimit++;
+        if (slot >= ids.length) grow(slot + 1);
+        ids[slot] = id;
+        out[slot] = new IntHashSet();
+        in[slot] = new IntHashSet();
+        slotById.put(id, slot);
+        nodeCount++;
+        return slot;
+    }
+
+    public boolean removeNode(int id) {
+        int slot = slotById.remove(id);
+        if (slot == IntIntHashMap.MISSING) return false;
+
+        for (int target : out[slot].toArray()) {
+            if (target != slot) in[target].remove(slot);
+        }
+        for (int source : in[slot].toArray()) {
+            if (source != slot) out[source].remove(slot);
+        }
+        edgeCount -= out[slot].size() + in[slot].size() - (out[slot].contains(slot) ? 1 : 0);
+
+        out[slot] = null;
+        in[slot] = null;
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+        nodeCount--;
+        return true;
+    }
+
+    /** Add from → to, creating either node if needed; false if the edge already existed */
+    public boolean addEdge(int fromId, int toId) {
+        int from = addNode(fromId);
+        int to = addNode(toId);
+        if (!out[from].add(to)) return false;
+        in[to].add(from);
+        edgeCount++;
+        return true;
+    }
+
+    public boolean removeEdge(int fromId, int toId) {
+        int from = slotById.get(fromId);
+        int to = slotById.get(toId);
+        if (from == IntIntHashMap.MISSING || to == IntIntHashMap.MISSING) return false;
+        if (!out[from].remove(to)) return false;
+        in[to].remove(from);
+        edgeCount--;
+        return true;
+    }
+
+    public boolean containsNode(int id) {
+        return slotById.containsKey(id);
+    }
+
+    public boolean containsEdge(int fromId, int toId) {
+        int from = slotById.get(fromId);
+        int to = slotById.get(toId);
+        return from != IntIntHashMap.MISSING && to != IntIntHashMap.MISSING && out[from].contains(to);
+    }
+
+    // --- Slot access for algorithms ---
+
+    /** Slot of the id, or -1 if the node is absent */
+    public int slotOf(int id) { return slotById.get(id); }
+    public int idAt(int slot) { return ids[slot]; }
+    public boolean isLive(int slot) { return slot < slotLimit && out[slot] != null; }
+    public int slotLimit() { return slotLimit; }
+    public IntHashSet outSlots(int slot) { return out[slot]; }
+    public IntHashSet inSlots(int slot) { return in[slot]; }
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return edgeCount; }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        out = Arrays.copyOf(out, capacity);
+        in = Arrays.copyOf(in, capacity);
+    }
+}
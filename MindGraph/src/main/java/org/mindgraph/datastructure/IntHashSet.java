@@ -0,0 +1,131 @@
+package org.mindgraph.datastructure;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing hash set of non-negative ints (no boxing).
+ * Linear probing with backward-shift deletion, so there are no tombstones.
+ * Big-O (expected): add/remove/contains O(1), iteration O(capacity).
+ */
+public class IntHashSet implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] table;
+    private int size = 0;
+
+    public IntHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntHashSet(int expected) {
+        table = new int[tableSizeFor(expected)];
+        Arrays.fill(table, EMPTY);
+    }
+
+    public boolean add(int value) {
+        checkValue(value);
+        if ((size + 1) * 4 > table.length * 3) resize(table.length * 2);
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == value) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        size++;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == value) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(int value) {
+        if (value < 0) return false;
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (table[i] != value) {
+            if (table[i] == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+        // Backward-shift the following cluster so lookups never hit a gap
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (table[j] != EMPTY) {
+            int home = mix(table[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                table[gap] = table[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        table[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int v : table) {
+            if (v != EMPTY) action.accept(v);
+        }
+    }
+
+    /** Snapshot of the values, safe to use while modifying the set */
+    public int[] toArray() {
+        int[] out = new int[size];
+        int k = 0;
+        for (int v : table) {
+            if (v != EMPTY) out[k++] = v;
+        }
+        return out;
+    }
+
+    private void resize(int newCapacity) {
+        int[] old = table;
+        table = new int[newCapacity];
+        Arrays.fill(table, EMPTY);
+        int mask = newCapacity - 1;
+        for (int v : old) {
+            if (v == EMPTY) continue;
+            int i = mix(v) & mask;
+            while (table[i] != EMPTY) i = (i + 1) & mask;
+            table[i] = v;
+        }
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) throw new IllegalArgumentException("IntHashSet only stores non-negative values: " + value);
+    }
+
+    private static int tableSizeFor(int expected) {
+        int needed = Math.max(MIN_CAPACITY, (int) Math.ceil(expected / 0.75));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
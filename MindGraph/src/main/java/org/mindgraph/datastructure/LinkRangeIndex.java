@@ -0,0 +1,192 @@
+package org.mindgraph.datastructure;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint text ranges [start, end) sorted by start, each pointing at a target.
+ * Text edits shift the ranges after them through a Fenwick tree of offsets instead of
+ * rewriting every range; ranges an edit lands inside are dropped, since their text changed.
+ * Big-O: at(pos) O(log² n), edit O(log² n + ranges dropped), build O(n).
+ */
+public class LinkRangeIndex<T> {
+
+    private int[] starts;    // stored positions; the real position adds offset(index)
+    private int[] ends;
+    private Object[] targets; // null once a range is dropped
+    private long[] shifts;    // Fenwick tree over per-index shift deltas, 1-based
+    private int size = 0;
+    private int live = 0;
+
+    public LinkRangeIndex() {
+        this(8);
+    }
+
+    public LinkRangeIndex(int expected) {
+        int capacity = Math.max(1, expected);
+        starts = new int[capacity];
+        ends = new int[capacity];
+        targets = new Object[capacity];
+        shifts = new long[capacity + 1];
+    }
+
+    /** Append a range; ranges must be added in order and must not overlap */
+    public void add(int start, int end, T target) {
+        if (target == null) throw new IllegalArgumentException("Link target must not be null");
+        int k = size - 1;
+        for (; k >= 0 && targets[k] == null && start(k) > start; k--) park(k, start);
+        if (k >= 0 && start < end(k)) {
+            throw new IllegalArgumentException("Ranges must be added in order without overlap: " + start);
+        }
+        if (size == starts.length) grow();
+        // Shifts recorded so far also cover this index, so store the position net of them
+        int offset = (int) offset(size);
+        starts[size] = start - offset;
+        ends[size] = end - offset;
+        targets[size] = target;
+        size++;
+        live++;
+    }
+
+    /** Target of the range containing pos, or null */
+    @SuppressWarnings("unchecked")
+    public T at(int pos) {
+        int j = lastStartingAtOrBefore(pos);
+        if (j < 0 || targets[j] == null) return null;
+        return pos < end(j) ? (T) targets[j] : null;
+    }
+
+    public boolean contains(int pos) {
+        return at(pos) != null;
+    }
+
+    /**
+     * Apply a text edit: removed chars at position replaced by inserted chars.
+     * Ranges after the edit move by the length difference; ranges overlapping the
+     * removed text, or with text inserted strictly inside them, are dropped.
+     */
+    public void edit(int position, int removed, int inserted) {
+        if (size == 0) return;
+
+        // First range entirely after the edited region; it and everything after it shifts
+        int first = firstStartingAtOrAfter(position + removed);
+
+        // Ranges before it that reach past the edit position were edited: drop them.
+        // Dropped ranges are parked at the edit point so positions stay sorted.
+        for (int k = first - 1; k >= 0 && end(k) > position; k--) {
+            if (targets[k] != null) {
+                targets[k] = null;
+                live--;
+            }
+            park(k, position);
+        }
+
+        int delta = inserted - removed;
+        if (delta != 0 && first < size) addShift(first, delta);
+
+        if (live < size / 2 && size > 64) compact();
+    }
+
+    public void clear() {
+        Arrays.fill(targets, 0, size, null);
+        Arrays.fill(shifts, 0);
+        size = 0;
+        live = 0;
+    }
+
+    /** Number of ranges still linked */
+    public int size() {
+        return live;
+    }
+
+    public boolean isEmpty() {
+        return live == 0;
+    }
+
+    // --- Positions ---
+
+    private int start(int i) {
+        return (int) (starts[i] + offset(i));
+    }
+
+    private int end(int i) {
+        return (int) (ends[i] + offset(i));
+    }
+
+    /** Move a dropped range to an empty range at pos */
+    private void park(int i, int pos) {
+        long offset = offset(i);
+        starts[i] = (int) (pos - offset);
+        ends[i] = (int) (pos - offset);
+    }
+
+    private int lastStartingAtOrBefore(int pos) {
+        int lo = 0;
+        int hi = size - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start(mid) <= pos) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int firstStartingAtOrAfter(int pos) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start(mid) < pos) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // --- Fenwick tree: shift every index >= from by delta, read the total shift of one index ---
+
+    private void addShift(int from, long delta) {
+        for (int i = from + 1; i < shifts.length; i += i & -i) shifts[i] += delta;
+    }
+
+    private long offset(int index) {
+        long sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) sum += shifts[i];
+        return sum;
+    }
+
+    /** Bake the offsets into the positions and drop the unlinked ranges */
+    private void compact() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (targets[i] == null) continue;
+            int start = start(i);
+            int end = end(i);
+            starts[n] = start;
+            ends[n] = end;
+            targets[n] = targets[i];
+            n++;
+        }
+        Arrays.fill(targets, n, size, null);
+        Arrays.fill(shifts, 0);
+        size = n;
+        live = n;
+    }
+
+    private void grow() {
+        int capacity = starts.length * 2;
+        // Bake the offsets in first: the Fenwick tree is laid out for the old capacity
+        for (int i = 0; i < size; i++) {
+            long offset = offset(i);
+            starts[i] += (int) offset;
+            ends[i] += (int) offset;
+        }
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        shifts = new long[capacity + 1];
+    }
+}
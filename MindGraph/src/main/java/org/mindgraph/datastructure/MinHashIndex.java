@@ -0,0 +1,134 @@
+package org.mindgraph.datastructure;
+
+import org.mindgraph.model.KeywordInterner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash/LSH index over sets of int ids (interned keywords), keyed by a non-negative int (note id).
+ * Each set gets bands·rows MinHash values; sets whose signatures agree on every row of at least
+ * one band share a bucket and become candidates. Two sets with Jaccard similarity s are
+ * candidates with probability 1 - (1 - s^rows)^bands, an S-curve centred near threshold().
+ * More bands raise recall and cost; more rows make candidates stricter and cheaper to check.
+ * Big-O: put/remove O(set size · bands · rows), candidates O(bands + bucket sizes).
+ */
+public class MinHashIndex {
+
+    private final int bands;
+    private final int rows;
+    private final int maxBucket;
+    private final long[] multipliers; // one hash function per signature row
+    private final long[] offsets;
+
+    private final Map<Long, IntHashSet> buckets = new HashMap<>(); // band key → member keys
+    private final Map<Integer, long[]> bandKeys = new HashMap<>(); // member key → its band keys
+
+    /**
+     * @param maxBucket buckets with more members than this are too unspecific to yield
+     *                  candidates (e.g. many notes sharing one keyword set); keeps the cost sub-quadratic
+     */
+    public MinHashIndex(int bands, int rows, int maxBucket, long seed) {
+        if (bands < 1 || rows < 1) throw new IllegalArgumentException("bands and rows must be positive");
+        this.bands = bands;
+        this.rows = rows;
+        this.maxBucket = Math.max(2, maxBucket);
+        SplittableRandom random = new SplittableRandom(seed);
+        multipliers = new long[bands * rows];
+        offsets = new long[bands * rows];
+        for (int i = 0; i < multipliers.length; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            offsets[i] = random.nextLong();
+        }
+    }
+
+    /** Similarity at which a pair is a candidate with probability about 1/2: (1/bands)^(1/rows) */
+    public double threshold() {
+        return Math.pow(1.0 / bands, 1.0 / rows);
+    }
+
+    /** Index the set under key, replacing what was there; empty sets are not indexed */
+    public void put(int key, int[] ids) {
+        remove(key);
+        if (ids.length == 0) return;
+
+        long[] signature = signature(ids);
+        long[] keys = new long[bands];
+        for (int b = 0; b < bands; b++) {
+            long h = b;
+            for (int r = 0; r < rows; r++) h = mix(h * 31 + signature[b * rows + r]);
+            keys[b] = h;
+            buckets.computeIfAbsent(h, k -> new IntHashSet()).add(key);
+        }
+        bandKeys.put(key, keys);
+    }
+
+    public void remove(int key) {
+        long[] keys = bandKeys.remove(key);
+        if (keys == null) return;
+        for (long h : keys) {
+            IntHashSet bucket = buckets.get(h);
+            if (bucket == null) continue;
+            bucket.remove(key);
+            if (bucket.isEmpty()) buckets.remove(h);
+        }
+    }
+
+    /** Keys sharing at least one band bucket with key, key itself excluded */
+    public IntHashSet candidates(int key) {
+        IntHashSet found = new IntHashSet();
+        long[] keys = bandKeys.get(key);
+        if (keys == null) return found;
+        for (long h : keys) {
+            IntHashSet bucket = buckets.get(h);
+            if (bucket == null || bucket.size() > maxBucket) continue;
+            bucket.forEach(found::add);
+        }
+        found.remove(key);
+        return found;
+    }
+
+    public boolean contains(int key) {
+        return bandKeys.containsKey(key);
+    }
+
+    public int size() {
+        return bandKeys.size();
+    }
+
+    public void clear() {
+        buckets.clear();
+        bandKeys.clear();
+    }
+
+    /** Exact Jaccard similarity of two sorted, duplicate-free id arrays */
+    public static double jaccard(int[] a, int[] b) {
+        if (a.length == 0 && b.length == 0) return 0;
+        int common = KeywordInterner.countCommon(a, b);
+        return (double) common / (a.length + b.length - common);
+    }
+
+    /** Per hash function, the smallest hash over the set's ids */
+    private long[] signature(int[] ids) {
+        long[] signature = new long[multipliers.length];
+        for (int k = 0; k < signature.length; k++) {
+            long min = Long.MAX_VALUE;
+            long m = multipliers[k];
+            long o = offsets[k];
+            for (int id : ids) {
+                long h = mix(id * m + o);
+                if (h < min) min = h;
+            }
+            signature[k] = min;
+        }
+        return signature;
+    }
+
+    /** 64-bit finalizer (SplitMix64) */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,202 @@
+package org.mindgraph.datastructure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Aho–Corasick automaton over phrases (note titles), matched case-insensitively as
+ * whole words with an optional plural "s"/"es", like \bphrase(?:s|es)?\b.
+ * Phrases are plain text, never regex.
+ * Big-O: build O(total phrase length · log σ); findAll O(n log σ + m log m)
+ * for text length n and m raw matches, whatever the number of phrases.
+ */
+public class TitleMatcher<T> {
+
+    /** One link: text[start, end) refers to value */
+    public record Match<T>(int start, int end, T value) {}
+
+    private static final int NONE = -1;
+
+    // Frozen trie: children of node k are keys/targets[k], keys sorted for binary search
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[] outputLink; // nearest node on the fail chain that ends a phrase
+    private final int[] depth;
+    private final int[] phraseAt;   // phrase ending at the node, or NONE
+    private final List<List<T>> values;
+    private final boolean[] wordStart;
+    private final boolean[] wordEnd;
+
+    /** Automaton over phrase(item) of every item; items sharing a phrase share its matches */
+    public static <T> TitleMatcher<T> build(Collection<T> items, Function<T, String> phrase) {
+        return new TitleMatcher<>(items, phrase);
+    }
+
+    private TitleMatcher(Collection<T> items, Function<T, String> phraseOf) {
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        children.add(new HashMap<>());
+        List<Integer> depths = new ArrayList<>(List.of(0));
+        Map<Integer, Integer> phraseByNode = new HashMap<>();
+        List<List<T>> phraseValues = new ArrayList<>();
+        List<String> phrases = new ArrayList<>();
+
+        for (T item : items) {
+            String phrase = phraseOf.apply(item);
+            if (phrase == null || phrase.isBlank()) continue;
+            int node = 0;
+            for (int i = 0; i < phrase.length(); i++) {
+                char c = Character.toLowerCase(phrase.charAt(i));
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    depths.add(depths.get(node) + 1);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            Integer id = phraseByNode.get(node);
+            if (id == null) {
+                id = phraseValues.size();
+                phraseByNode.put(node, id);
+                phraseValues.add(new ArrayList<>(1));
+                phrases.add(phrase);
+            }
+            phraseValues.get(id).add(item);
+        }
+
+        int n = children.size();
+        keys = new char[n][];
+        targets = new int[n][];
+        depth = new int[n];
+        phraseAt = new int[n];
+        Arrays.fill(phraseAt, NONE);
+        for (int k = 0; k < n; k++) {
+            Map<Character, Integer> m = children.get(k);
+            char[] ks = new char[m.size()];
+            int j = 0;
+            for (char c : m.keySet()) ks[j++] = c;
+            Arrays.sort(ks);
+            int[] ts = new int[ks.length];
+            for (j = 0; j < ks.length; j++) ts[j] = m.get(ks[j]);
+            keys[k] = ks;
+            targets[k] = ts;
+            depth[k] = depths.get(k);
+        }
+        phraseByNode.forEach((node, id) -> phraseAt[node] = id);
+
+        values = phraseValues;
+        wordStart = new boolean[phrases.size()];
+        wordEnd = new boolean[phrases.size()];
+        for (int id = 0; id < phrases.size(); id++) {
+            String p = phrases.get(id);
+            wordStart[id] = isWordChar(p.charAt(0));
+            wordEnd[id] = isWordChar(p.charAt(p.length() - 1));
+        }
+
+        // Breadth-first failure and output links
+        fail = new int[n];
+        outputLink = new int[n];
+        outputLink[0] = NONE;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            fail[child] = 0;
+            outputLink[child] = NONE;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int j = 0; j < keys[node].length; j++) {
+                char c = keys[node][j];
+                int child = targets[node][j];
+                int f = fail[node];
+                int next;
+                while ((next = step(f, c)) == NONE && f != 0) f = fail[f];
+                fail[child] = next == NONE ? 0 : next;
+                outputLink[child] = phraseAt[fail[child]] != NONE ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Every non-overlapping phrase occurrence in one pass over the text, leftmost-longest first.
+     * An occurrence links to the first of its phrase's values that accept allows; others are skipped.
+     */
+    public List<Match<T>> findAll(CharSequence text, Predicate<T> accept) {
+        List<int[]> raw = new ArrayList<>(); // {start, end, phrase}
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = step(state, c)) == NONE && state != 0) state = fail[state];
+            state = next == NONE ? 0 : next;
+
+            for (int node = phraseAt[state] != NONE ? state : outputLink[state]; node != NONE; node = outputLink[node]) {
+                int id = phraseAt[node];
+                int start = i + 1 - depth[node];
+                int end = linkEnd(text, id, start, i + 1);
+                if (end != NONE) raw.add(new int[]{start, end, id});
+            }
+        }
+        if (raw.isEmpty()) return List.of();
+
+        raw.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+        List<Match<T>> matches = new ArrayList<>();
+        int covered = 0;
+        for (int[] m : raw) {
+            if (m[0] < covered) continue;
+            T value = firstAccepted(values.get(m[2]), accept);
+            if (value == null) continue;
+            matches.add(new Match<>(m[0], m[1], value));
+            covered = m[1];
+        }
+        return matches;
+    }
+
+    public int phraseCount() {
+        return values.size();
+    }
+
+    /** End of the link including a plural suffix, or NONE if the word boundaries fail */
+    private int linkEnd(CharSequence text, int id, int start, int end) {
+        if (wordStart[id] && start > 0 && isWordChar(text.charAt(start - 1))) return NONE;
+        if (!wordEnd[id]) return end;
+        if (isSuffix(text, end, "es")) return end + 2;
+        if (isSuffix(text, end, "s")) return end + 1;
+        return end < text.length() && isWordChar(text.charAt(end)) ? NONE : end;
+    }
+
+    private static boolean isSuffix(CharSequence text, int at, String suffix) {
+        int end = at + suffix.length();
+        if (end > text.length()) return false;
+        for (int i = 0; i < suffix.length(); i++) {
+            if (Character.toLowerCase(text.charAt(at + i)) != suffix.charAt(i)) return false;
+        }
+        return end == text.length() || !isWordChar(text.charAt(end));
+    }
+
+    private int step(int node, char c) {
+        int j = Arrays.binarySearch(keys[node], c);
+        return j >= 0 ? targets[node][j] : NONE;
+    }
+
+    private static <T> T firstAccepted(List<T> candidates, Predicate<T> accept) {
+        for (T t : candidates) {
+            if (accept.test(t)) return t;
+        }
+        return null;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
@@ -0,0 +1,54 @@
+package org.mindgraph.datastructure;
+
+/**
+ * Array-backed disjoint sets over ints 0..n-1.
+ * Union by rank + iterative path halving, so find never recurses.
+ * Big-O: find/union amortized O(α(n)), effectively constant.
+ */
+public class UnionFind {
+
+    private final int[] parent;
+    private final byte[] rank;
+    private int sets;
+
+    public UnionFind(int n) {
+        parent = new int[n];
+        rank = new byte[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+        sets = n;
+    }
+
+    public int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]; // path halving
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /** Merge the sets of a and b; false if they were already joined */
+    public boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) return false;
+
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+        sets--;
+        return true;
+    }
+
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    public int sets() {
+        return sets;
+    }
+}
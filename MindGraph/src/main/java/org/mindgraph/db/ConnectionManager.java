@@ -0,0 +1,183 @@
+package org.mindgraph.db;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One shared set of SQLite connections per database file:
+ * a single writer connection (SQLite allows one writer at a time) plus a small
+ * pool of read-only connections, all in WAL mode so reads never block on the writer.
+ * Prepared statements are cached per connection and reused across calls.
+ *
+ * Usage:
+ * <pre>
+ * try (ConnectionManager.Lease lease = db.read()) {
+ *     PreparedStatement ps = lease.prepare(sql);   // do not close, it is cached
+ *     try (ResultSet rs = ps.executeQuery()) { ... }
+ * }
+ * </pre>
+ */
+public final class ConnectionManager {
+
+    private static final int MAX_READERS = 3;
+    private static final Map<String, ConnectionManager> INSTANCES = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ConnectionManager::closeAll, "sqlite-close"));
+    }
+
+    private final String url;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Lease writer;
+    private final BlockingQueue<Lease> idleReaders = new ArrayBlockingQueue<>(MAX_READERS);
+    private final List<Lease> allReaders = new ArrayList<>();
+
+    private ConnectionManager(String dbPath) {
+        this.url = "jdbc:sqlite:" + dbPath;
+    }
+
+    /** Shared manager for a database file; paths are compared after making them absolute */
+    public static ConnectionManager forPath(String dbPath) {
+        return INSTANCES.computeIfAbsent(new File(dbPath).getAbsolutePath(), ConnectionManager::new);
+    }
+
+    /** Exclusive use of the writer connection until the lease is closed */
+    public Lease write() throws SQLException {
+        writeLock.lock();
+        try {
+            if (writer == null) writer = new Lease(open(false), true);
+            return writer;
+        } catch (SQLException | RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    /** A pooled read-only connection; waits if all readers are busy */
+    public Lease read() throws SQLException {
+        Lease lease = idleReaders.poll();
+        if (lease != null) return lease;
+
+        synchronized (allReaders) {
+            if (allReaders.size() < MAX_READERS) {
+                lease = new Lease(open(true), false);
+                allReaders.add(lease);
+                return lease;
+            }
+        }
+        try {
+            return idleReaders.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Connection open(boolean readOnly) throws SQLException {
+        Connection c = DriverManager.getConnection(url);
+        try (Statement s = c.createStatement()) {
+            s.execute("PRAGMA busy_timeout = 5000");
+            if (!readOnly) s.execute("PRAGMA journal_mode = WAL"); // persistent for the file
+            s.execute("PRAGMA synchronous = NORMAL");                // safe with WAL, far fewer fsyncs
+            s.execute("PRAGMA cache_size = -16000");                 // 16 MB page cache
+            s.execute("PRAGMA mmap_size = 268435456");               // 256 MB memory-mapped reads
+            s.execute("PRAGMA temp_store = MEMORY");
+            if (readOnly) s.execute("PRAGMA query_only = 1");
+        }
+        return c;
+    }
+
+    /** Close every connection of every manager (called at JVM shutdown) */
+    public static void closeAll() {
+        for (ConnectionManager m : INSTANCES.values()) m.close();
+    }
+
+    public void close() {
+        writeLock.lock();
+        try {
+            if (writer != null) writer.closeConnection();
+            writer = null;
+        } finally {
+            writeLock.unlock();
+        }
+        synchronized (allReaders) {
+            for (Lease l : allReaders) l.closeConnection();
+            allReaders.clear();
+            idleReaders.clear();
+        }
+    }
+
+    /** A borrowed connection with its statement cache; close() hands it back */
+    public final class Lease implements AutoCloseable {
+        private final Connection connection;
+        private final boolean isWriter;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private Lease(Connection connection, boolean isWriter) {
+            this.connection = connection;
+            this.isWriter = isWriter;
+        }
+
+        public Connection connection() {
+            return connection;
+        }
+
+        /** Cached statement for sql; parameters are cleared, the statement must not be closed */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            return prepare(sql, Statement.NO_GENERATED_KEYS);
+        }
+
+        public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            String key = autoGeneratedKeys + ":" + sql;
+            PreparedStatement ps = statements.get(key);
+            if (ps == null || ps.isClosed()) {
+                ps = connection.prepareStatement(sql, autoGeneratedKeys);
+                statements.put(key, ps);
+            } else {
+                ps.clearParameters();
+            }
+            return ps;
+        }
+
+        @Override
+        public void close() {
+            if (isWriter) {
+                try {
+                    // Outermost release only: nested write() calls on one thread share the lease
+                    if (writeLock.getHoldCount() == 1 && !connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                } finally {
+                    writeLock.unlock();
+                }
+            } else {
+                idleReaders.offer(this);
+            }
+        }
+
+        private void closeConnection() {
+            try {
+                for (PreparedStatement ps : statements.values()) ps.close();
+                statements.clear();
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
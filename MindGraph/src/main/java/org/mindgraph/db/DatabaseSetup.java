@@ -1,21 +1,32 @@
 package org.mindgraph.db;
 
+import org.mindgraph.model.Note;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /** Creates table if missing and performs gentle migrations if columns are missing. */
 public class DatabaseSetup {
+    // PRAGMA user_version once the keyword CSV has been copied into note_keywords
+    private static final int KEYWORD_TABLE_VERSION = 1;
+    // PRAGMA user_version once title-only search rows are queued for the body backfill
+    private static final int SEARCH_BODY_VERSION = 2;
+
     public static void init(String path) throws Exception {
         try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + path)) {
             try (Statement s = c.createStatement()) {
                 // Base table
                 s.execute("""
                     CREATE TABLE IF NOT EXISTS notes (
-                      id TEXT PRIMARY KEY,
+                      id INTEGER PRIMARY KEY AUTOINCREMENT,
                       title TEXT NOT NULL,
                       file_path TEXT,        -- may be null initially; we'll backfill on first save
-                      keywords TEXT,         -- CSV
+                      keywords TEXT,         -- legacy CSV, migrated into note_keywords
                       difficulty INTEGER DEFAULT 1,
                       created_at TEXT,
                       updated_at TEXT
@@ -30,11 +41,47 @@ public class DatabaseSetup {
                                 note_id TEXT NOT NULL,
                                 file_path TEXT NOT NULL,
                                 opened_at TEXT DEFAULT CURRENT_TIMESTAMP,
+                                usage_count INTEGER DEFAULT 0,
                                 FOREIGN KEY(note_id) REFERENCES notes(id) ON DELETE CASCADE
                               );
                         
                 """);
 
+                // One row per (note, keyword); position keeps the keyword order of the note
+                s.execute("""
+                    CREATE TABLE IF NOT EXISTS note_keywords (
+                      note_id INTEGER NOT NULL,
+                      keyword TEXT NOT NULL COLLATE NOCASE,
+                      position INTEGER NOT NULL DEFAULT 0,
+                      PRIMARY KEY (note_id, keyword)
+                    ) WITHOUT ROWID;
+                """);
+                s.execute("CREATE INDEX IF NOT EXISTS idx_note_keywords_keyword ON note_keywords(keyword);");
+                s.execute("CREATE INDEX IF NOT EXISTS idx_notes_title ON notes(title COLLATE NOCASE);");
+                s.execute("CREATE INDEX IF NOT EXISTS idx_notes_file_path ON notes(file_path);");
+
+                // Full-text index of titles and note bodies; rowid is the note id
+                s.execute("""
+                    CREATE VIRTUAL TABLE IF NOT EXISTS note_fts USING fts5(
+                      title,
+                      body,
+                      tokenize = 'unicode61 remove_diacritics 2'
+                    );
+                """);
+
+                // Per-term document counts of the index (TF-IDF); FTS5 keeps them current on every write
+                s.execute("CREATE VIRTUAL TABLE IF NOT EXISTS note_vocab USING fts5vocab(note_fts, 'row');");
+
+
+                // Progress of resumable bulk jobs: the last note id a job finished
+                s.execute("""
+                    CREATE TABLE IF NOT EXISTS job_checkpoints (
+                      job TEXT PRIMARY KEY,
+                      last_note_id INTEGER NOT NULL,
+                      updated_at TEXT
+                    );
+                """);
+
 
                 // Migrations for older schemas
                 try { s.execute("ALTER TABLE notes ADD COLUMN file_path TEXT;"); }
@@ -51,7 +98,100 @@ public class DatabaseSetup {
 
                 try { s.execute("ALTER TABLE notes ADD COLUMN updated_at TEXT;"); }
                 catch (Exception ignore) { /* duplicate column name */ }
+
+                try { s.execute("ALTER TABLE SessionHistory ADD COLUMN usage_count INTEGER DEFAULT 0;"); }
+                catch (Exception ignore) { /* duplicate column name */ }
+            }
+
+            migrateKeywordCsv(c);
+            backfillSearchIndex(c);
+        }
+    }
+
+    /**
+     * Index the titles of notes saved before the search index existed.
+     * Bodies live in the note files and are too slow to parse here, so the rows start with
+     * an empty body and the search-bodies job is scheduled to fill them in the background
+     * (see SearchIndexBackfill). Databases that got title-only rows from a build without
+     * that job are scheduled once as well.
+     */
+    private static void backfillSearchIndex(Connection c) throws Exception {
+        int version;
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("PRAGMA user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+
+        try (Statement s = c.createStatement()) {
+            // Counted first: the update count of an FTS5 insert includes its shadow table writes
+            int added;
+            try (ResultSet rs = s.executeQuery("SELECT count(*) FROM notes WHERE id NOT IN (SELECT rowid FROM note_fts)")) {
+                added = rs.next() ? rs.getInt(1) : 0;
+            }
+            if (added > 0) {
+                s.executeUpdate("""
+                        INSERT INTO note_fts(rowid, title, body)
+                        SELECT id, title, '' FROM notes
+                        WHERE id NOT IN (SELECT rowid FROM note_fts)
+                        """);
+                System.out.println("Indexed titles of " + added + " notes for search");
+            }
+
+            boolean olderIndex = false;
+            if (version < SEARCH_BODY_VERSION) {
+                try (ResultSet rs = s.executeQuery("SELECT EXISTS(SELECT 1 FROM notes)")) {
+                    olderIndex = rs.next() && rs.getBoolean(1);
+                }
+                s.execute("PRAGMA user_version = " + SEARCH_BODY_VERSION);
+            }
+            if (added > 0 || olderIndex) {
+                try (PreparedStatement schedule = c.prepareStatement(
+                        "INSERT OR REPLACE INTO job_checkpoints(job, last_note_id, updated_at) VALUES(?, 0, ?)")) {
+                    schedule.setString(1, NoteDao.SEARCH_BODY_JOB);
+                    schedule.setString(2, LocalDateTime.now().toString());
+                    schedule.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy CSV keywords into note_keywords in one transaction, once per database.
+     * The legacy column is left as it was (older builds still read it); the schema
+     * version marker stops later runs from re-adding keywords removed since.
+     */
+    private static void migrateKeywordCsv(Connection c) throws Exception {
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("PRAGMA user_version")) {
+            if (rs.next() && rs.getInt(1) >= KEYWORD_TABLE_VERSION) return;
+        }
+
+        c.setAutoCommit(false);
+        try (Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT id, keywords FROM notes WHERE keywords IS NOT NULL AND keywords != ''");
+             PreparedStatement insert = c.prepareStatement(
+                     "INSERT OR IGNORE INTO note_keywords(note_id, keyword, position) VALUES(?,?,?)")) {
+
+            int migrated = 0;
+            while (rs.next()) {
+                List<String> keywords = Note.keywordsFromCsv(rs.getString("keywords"));
+                for (int i = 0; i < keywords.size(); i++) {
+                    insert.setInt(1, rs.getInt("id"));
+                    insert.setString(2, keywords.get(i));
+                    insert.setInt(3, i);
+                    insert.addBatch();
+                }
+                migrated++;
+            }
+            insert.executeBatch();
+            try (Statement version = c.createStatement()) {
+                version.execute("PRAGMA user_version = " + KEYWORD_TABLE_VERSION);
             }
+            if (migrated > 0) System.out.println("Migrated keywords of " + migrated + " notes into note_keywords");
+            c.commit();
+        } catch (Exception e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
         }
     }
 }
\ No newline at end of file
@@ -1,109 +1,305 @@
 package org.mindgraph.db;
 
+import org.mindgraph.model.CorpusStats;
 import org.mindgraph.model.Note;
+import org.mindgraph.model.SearchHit;
 
+import java.io.File;
 import java.sql.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class NoteDao {
 
-    private final String url;
+    private static final Set<String> INITIALIZED = ConcurrentHashMap.newKeySet();
 
-    public NoteDao(String dbPath) {
-        this.url = "jdbc:sqlite:" + dbPath;
-    }
+    private final ConnectionManager db;
 
-    private Connection connect() throws SQLException {
-        return DriverManager.getConnection(url);
+    public NoteDao(String dbPath) {
+        this.db = ConnectionManager.forPath(dbPath);
+        if (INITIALIZED.add(new File(dbPath).getAbsolutePath())) {
+            try {
+                DatabaseSetup.init(dbPath); // schema + migrations, once per database per run
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     /**
      * Insert a new note or update if it exists.
      * Only metadata is stored in DB; actual content is in XML/HTML file.
+     * The note row and its keyword rows are written in one transaction.
+     * The search index keeps the body it already has for this note.
      */
     public void upsert(Note note, String filePath) throws SQLException {
-        if (note.getId() == 0) {
-            insert(note, filePath);
-        } else {
-            update(note, filePath);
+        upsert(note, filePath, null);
+    }
+
+    /**
+     * Same as {@link #upsert(Note, String)}, also replacing the note's indexed body text
+     * (the plain text written to the note file) in the same transaction.
+     */
+    public void upsert(Note note, String filePath, String bodyText) throws SQLException {
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            c.setAutoCommit(false);
+            boolean inserting = note.getId() == 0;
+            try {
+                if (inserting) {
+                    insert(lease, note, filePath);
+                } else {
+                    update(lease, note, filePath);
+                }
+                replaceKeywords(lease, note.getId(), note.getKeywords());
+                indexText(lease, note.getId(), note.getTitle(), bodyText);
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                if (inserting) note.setId(0); // the row is gone, so the next save inserts again
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
         }
     }
 
-    private void insert(Note note, String filePath) throws SQLException {
+    private void insert(ConnectionManager.Lease lease, Note note, String filePath) throws SQLException {
         String sql = """
-                INSERT INTO notes(title, file_path, keywords, difficulty, created_at, updated_at)
-                VALUES(?,?,?,?,?,?)
+                INSERT INTO notes(title, file_path, difficulty, created_at, updated_at)
+                VALUES(?,?,?,?,?)
                 """;
 
-        try (Connection c = connect();
-             PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        PreparedStatement ps = lease.prepare(sql, Statement.RETURN_GENERATED_KEYS);
 
-            ps.setString(1, note.getTitle());
-            ps.setString(2, filePath);
-            ps.setString(3, note.keywordsAsCsv());
-            ps.setInt(4, note.getDifficulty());
-            ps.setString(5, note.getCreatedAt().toString());
-            ps.setString(6, LocalDateTime.now().toString());
+        ps.setString(1, note.getTitle());
+        ps.setString(2, filePath);
+        ps.setInt(3, note.getDifficulty());
+        ps.setString(4, note.getCreatedAt().toString());
+        ps.setString(5, LocalDateTime.now().toString());
 
-            ps.executeUpdate();
+        ps.executeUpdate();
 
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    note.setId(rs.getInt(1));
-                }
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            if (rs.next()) {
+                note.setId(rs.getInt(1));
             }
         }
     }
 
-    private void update(Note note, String filePath) throws SQLException {
+    private void update(ConnectionManager.Lease lease, Note note, String filePath) throws SQLException {
         String sql = """
                 UPDATE notes SET
                     title = ?,
                     file_path = ?,
-                    keywords = ?,
                     difficulty = ?,
                     updated_at = ?
                 WHERE id = ?
                 """;
 
-        try (Connection c = connect();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        PreparedStatement ps = lease.prepare(sql);
 
-            ps.setString(1, note.getTitle());
-            ps.setString(2, filePath);
-            ps.setString(3, note.keywordsAsCsv());
-            ps.setInt(4, note.getDifficulty());
-            ps.setString(5, LocalDateTime.now().toString());
-            ps.setInt(6, note.getId());
+        ps.setString(1, note.getTitle());
+        ps.setString(2, filePath);
+        ps.setInt(3, note.getDifficulty());
+        ps.setString(4, LocalDateTime.now().toString());
+        ps.setInt(5, note.getId());
 
-            ps.executeUpdate();
+        ps.executeUpdate();
+    }
+
+    /** Replace a note's keyword rows; caller owns the transaction */
+    private void replaceKeywords(ConnectionManager.Lease lease, int noteId, List<String> keywords) throws SQLException {
+        PreparedStatement delete = lease.prepare("DELETE FROM note_keywords WHERE note_id = ?");
+        delete.setInt(1, noteId);
+        delete.executeUpdate();
+
+        if (keywords.isEmpty()) return;
+        PreparedStatement insert = lease.prepare(
+                "INSERT OR IGNORE INTO note_keywords(note_id, keyword, position) VALUES(?,?,?)");
+        for (int i = 0; i < keywords.size(); i++) {
+            insert.setInt(1, noteId);
+            insert.setString(2, keywords.get(i));
+            insert.setInt(3, i);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+    }
+
+    /**
+     * Register a batch of notes read from files in one transaction.
+     * Notes whose file path is already known update that row (through addBatch/executeBatch);
+     * their keywords are kept unless they have none yet. The rest are inserted one row at a
+     * time so each gets its id from getGeneratedKeys, together with its keyword rows.
+     * Every note gets its database id set, and bodies.get(i) becomes the indexed
+     * text of notes.get(i) (null keeps the indexed body). Returns how many rows were inserted.
+     */
+    public int importBatch(List<Note> notes, List<String> bodies) throws SQLException {
+        if (notes.isEmpty()) return 0;
+
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            c.setAutoCommit(false);
+            List<Note> fresh = new ArrayList<>();
+            try {
+                PreparedStatement find = lease.prepare("SELECT id FROM notes WHERE file_path = ?");
+                PreparedStatement update = lease.prepare("""
+                        UPDATE notes SET title = ?, difficulty = ?, updated_at = ?
+                        WHERE id = ?
+                        """);
+                PreparedStatement hasKeywords = lease.prepare("SELECT 1 FROM note_keywords WHERE note_id = ? LIMIT 1");
+                for (Note note : notes) {
+                    find.setString(1, note.getFilePath());
+                    try (ResultSet rs = find.executeQuery()) {
+                        if (!rs.next()) {
+                            fresh.add(note);
+                            continue;
+                        }
+                        note.setId(rs.getInt(1));
+                    }
+                    update.setString(1, note.getTitle());
+                    update.setInt(2, note.getDifficulty());
+                    update.setString(3, String.valueOf(orNow(note.getUpdatedAt())));
+                    update.setInt(4, note.getId());
+                    update.addBatch();
+
+                    hasKeywords.setInt(1, note.getId());
+                    try (ResultSet rs = hasKeywords.executeQuery()) {
+                        if (!rs.next()) replaceKeywords(lease, note.getId(), note.getKeywords());
+                    }
+                }
+                if (fresh.size() < notes.size()) update.executeBatch();
+
+                PreparedStatement insert = lease.prepare("""
+                        INSERT INTO notes(title, file_path, difficulty, created_at, updated_at)
+                        VALUES(?,?,?,?,?)
+                        """, Statement.RETURN_GENERATED_KEYS);
+                for (Note note : fresh) {
+                    insert.setString(1, note.getTitle());
+                    insert.setString(2, note.getFilePath());
+                    insert.setInt(3, note.getDifficulty());
+                    insert.setString(4, String.valueOf(orNow(note.getCreatedAt())));
+                    insert.setString(5, String.valueOf(orNow(note.getUpdatedAt())));
+                    insert.executeUpdate();
+                    try (ResultSet rs = insert.getGeneratedKeys()) {
+                        if (!rs.next()) throw new SQLException("No id generated for " + note.getFilePath());
+                        note.setId(rs.getInt(1));
+                    }
+                    replaceKeywords(lease, note.getId(), note.getKeywords());
+                }
+
+                for (int i = 0; i < notes.size(); i++) {
+                    indexText(lease, notes.get(i).getId(), notes.get(i).getTitle(), bodies.get(i));
+                }
+
+                c.commit();
+                return fresh.size();
+            } catch (SQLException e) {
+                c.rollback();
+                for (Note note : fresh) note.setId(0); // those rows are gone
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static LocalDateTime orNow(LocalDateTime dt) {
+        return dt != null ? dt : LocalDateTime.now();
+    }
+
+    /** Replace a note's row in the search index; a null body keeps the indexed one. Caller owns the transaction */
+    private void indexText(ConnectionManager.Lease lease, int noteId, String title, String body) throws SQLException {
+        if (body == null) {
+            PreparedStatement retitle = lease.prepare("UPDATE note_fts SET title = ? WHERE rowid = ?");
+            retitle.setString(1, title);
+            retitle.setInt(2, noteId);
+            if (retitle.executeUpdate() > 0) return;
+            body = "";
         }
+        PreparedStatement ps = lease.prepare("INSERT OR REPLACE INTO note_fts(rowid, title, body) VALUES(?,?,?)");
+        ps.setInt(1, noteId);
+        ps.setString(2, title);
+        ps.setString(3, body);
+        ps.executeUpdate();
+    }
+
+    /** Replace only the indexed body of a note, keeping its indexed title. Caller owns the transaction */
+    private void indexBody(ConnectionManager.Lease lease, int noteId, String body) throws SQLException {
+        PreparedStatement ps = lease.prepare("UPDATE note_fts SET body = ? WHERE rowid = ?");
+        ps.setString(1, body);
+        ps.setInt(2, noteId);
+        if (ps.executeUpdate() > 0) return;
+
+        PreparedStatement insert = lease.prepare("INSERT INTO note_fts(rowid, title, body) SELECT id, title, ? FROM notes WHERE id = ?");
+        insert.setString(1, body);
+        insert.setInt(2, noteId);
+        insert.executeUpdate();
+    }
+
+    // -------------------- Full-text search --------------------
+
+    /**
+     * Ranked full-text search over titles and bodies.
+     * Words must all match; the last word also matches as a prefix, so this works as-you-type.
+     * Title hits weigh 10x body hits (bm25); snippets mark matches with [ ].
+     */
+    public List<SearchHit> search(String text, int limit) throws SQLException {
+        String match = toMatchQuery(text);
+        if (match.isEmpty()) return List.of();
+
+        String sql = """
+                SELECT n.id, n.title, n.file_path,
+                       snippet(note_fts, -1, '[', ']', '…', 12) AS snippet,
+                       bm25(note_fts, 10.0, 1.0) AS score
+                FROM note_fts JOIN notes n ON n.id = note_fts.rowid
+                WHERE note_fts MATCH ?
+                ORDER BY score
+                LIMIT ?
+                """;
+
+        List<SearchHit> hits = new ArrayList<>();
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setString(1, match);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    hits.add(new SearchHit(rs.getInt("id"), rs.getString("title"), rs.getString("file_path"),
+                            rs.getString("snippet"), rs.getDouble("score")));
+                }
+            }
+        }
+        return hits;
+    }
+
+    /** User text → FTS5 query: each word quoted (no operator injection), last one as prefix */
+    static String toMatchQuery(String text) {
+        if (text == null) return "";
+        StringBuilder query = new StringBuilder();
+        for (String word : text.trim().split("[^\\p{L}\\p{N}_]+")) {
+            if (word.isEmpty()) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(word).append('"');
+        }
+        if (query.length() > 0) query.append('*');
+        return query.toString();
     }
 
     /** Load a note by ID (content is in file, not DB) */
     public Note load(int id) throws SQLException {
         String sql = "SELECT * FROM notes WHERE id = ?";
 
-        try (Connection c = connect();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setInt(1, id);
 
             try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return null;
-
-                Note note = new Note(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getInt("difficulty"),
-                        LocalDateTime.parse(rs.getString("created_at")),
-                        LocalDateTime.parse(rs.getString("updated_at")),
-                        Note.keywordsFromCsv(rs.getString("keywords"))
-                );
-                note.setFilePath(rs.getString("file_path"));
-                return note;
+                return rs.next() ? withKeywords(lease, readNote(rs)) : null;
             }
         }
     }
@@ -112,39 +308,251 @@ public class NoteDao {
     public Note findByFilePath(String filePath) throws SQLException {
         String sql = "SELECT * FROM notes WHERE file_path = ?";
 
-        try (Connection c = connect();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setString(1, filePath);
 
             try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return null;
-
-                Note note = new Note(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getInt("difficulty"),
-                        LocalDateTime.parse(rs.getString("created_at")),
-                        LocalDateTime.parse(rs.getString("updated_at")),
-                        Note.keywordsFromCsv(rs.getString("keywords"))
-                );
-                note.setFilePath(rs.getString("file_path"));
-                return note;
+                return rs.next() ? withKeywords(lease, readNote(rs)) : null;
             }
         }
     }
 
+    /** Notes whose title equals the given text, ignoring case (uses idx_notes_title) */
+    public List<Note> findByTitle(String title) throws SQLException {
+        String sql = "SELECT * FROM notes WHERE title = ? COLLATE NOCASE";
+        return queryNotes(sql, title);
+    }
+
+    /** Notes that carry the given keyword, ignoring case (uses idx_note_keywords_keyword) */
+    public List<Note> findByKeyword(String keyword) throws SQLException {
+        String sql = """
+                SELECT n.* FROM note_keywords k
+                JOIN notes n ON n.id = k.note_id
+                WHERE k.keyword = ?
+                """;
+        return queryNotes(sql, keyword);
+    }
+
+    private List<Note> queryNotes(String sql, String param) throws SQLException {
+        List<Note> notes = new ArrayList<>();
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setString(1, param);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) notes.add(readNote(rs));
+            }
+            for (Note n : notes) withKeywords(lease, n);
+        }
+        return notes;
+    }
+
     /** Update only the keywords for a note */
     public void updateKeywords(int id, String keywordsCsv) throws SQLException {
-        String sql = "UPDATE notes SET keywords = ?, updated_at = ? WHERE id = ?";
+        updateKeywords(id, Note.keywordsFromCsv(keywordsCsv));
+    }
 
-        try (Connection c = connect();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+    public void updateKeywords(int id, List<String> keywords) throws SQLException {
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            c.setAutoCommit(false);
+            try {
+                replaceKeywords(lease, id, keywords);
+
+                PreparedStatement ps = lease.prepare("UPDATE notes SET updated_at = ? WHERE id = ?");
+                ps.setString(1, LocalDateTime.now().toString());
+                ps.setInt(2, id);
+                ps.executeUpdate();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Replace the keywords of many notes in one transaction, as a bulk job writes them.
+     * Same effect per note as updateKeywords(id, keywords).
+     */
+    public void updateKeywords(Map<Integer, List<String>> keywordsById) throws SQLException {
+        updateKeywords(keywordsById, Map.of());
+    }
+
+    /**
+     * Same as {@link #updateKeywords(Map)}, also replacing the indexed body text of the
+     * notes in bodiesById in the same transaction; a bulk job that parsed the files anyway
+     * keeps the search index and corpus statistics in step with the keywords this way.
+     */
+    public void updateKeywords(Map<Integer, List<String>> keywordsById, Map<Integer, String> bodiesById)
+            throws SQLException {
+        if (keywordsById.isEmpty() && bodiesById.isEmpty()) return;
+
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement ps = lease.prepare("UPDATE notes SET updated_at = ? WHERE id = ?");
+                String now = LocalDateTime.now().toString();
+                for (Map.Entry<Integer, List<String>> e : keywordsById.entrySet()) {
+                    replaceKeywords(lease, e.getKey(), e.getValue());
+                    ps.setString(1, now);
+                    ps.setInt(2, e.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                for (Map.Entry<Integer, String> e : bodiesById.entrySet()) {
+                    indexBody(lease, e.getKey(), e.getValue());
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
 
-            ps.setString(1, keywordsCsv);
-            ps.setString(2, LocalDateTime.now().toString());
-            ps.setInt(3, id);
+    /**
+     * Fill in indexed bodies that are still empty, in one transaction; for the search backfill.
+     * Rows that already have a body are left alone: a save that raced the backfill wrote a newer one.
+     * Returns how many bodies were written.
+     */
+    public int indexMissingBodies(Map<Integer, String> bodiesById) throws SQLException {
+        if (bodiesById.isEmpty()) return 0;
+
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement ps = lease.prepare("UPDATE note_fts SET body = ? WHERE rowid = ? AND body = ''");
+                for (Map.Entry<Integer, String> e : bodiesById.entrySet()) {
+                    ps.setString(1, e.getValue());
+                    ps.setInt(2, e.getKey());
+                    ps.addBatch();
+                }
+                int written = 0;
+                for (int rows : ps.executeBatch()) written += Math.max(0, rows);
+                c.commit();
+                return written;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
 
+    // -------------------- Corpus statistics --------------------
+
+    /**
+     * Document frequencies of the given terms over note titles and bodies.
+     * They come from the full-text index, which every upsert and import already updates.
+     * While the search body backfill is still pending, most bodies are not indexed yet and
+     * those counts would make every body-only noun look rare, so the frequencies come from
+     * note_keywords (notes carrying the term as a keyword) until the backfill completes.
+     */
+    public CorpusStats corpusStats(Collection<String> terms) throws SQLException {
+        Map<String, Integer> frequencies = new HashMap<>(terms.size() * 2);
+
+        try (ConnectionManager.Lease lease = db.read()) {
+            boolean fromKeywords = isJobPending(lease, SEARCH_BODY_JOB);
+            // One cached statement; fts5vocab answers term = ? without scanning the vocabulary,
+            // and note_keywords has idx_note_keywords_keyword (NOCASE, so case folds there too)
+            PreparedStatement ps = lease.prepare(fromKeywords
+                    ? "SELECT count(*) FROM note_keywords WHERE keyword = ?"
+                    : "SELECT doc FROM note_vocab WHERE term = ?");
+            for (String term : terms) {
+                String folded = CorpusStats.fold(term);
+                if (frequencies.containsKey(folded)) continue;
+                ps.setString(1, fromKeywords ? term : folded);
+                try (ResultSet rs = ps.executeQuery()) {
+                    frequencies.put(folded, rs.next() ? rs.getInt(1) : 0);
+                }
+            }
+            return new CorpusStats(countNotes(lease), frequencies);
+        }
+    }
+
+    /**
+     * Document frequencies of every indexed term, for bulk jobs that rank many notes.
+     * Taken from note_keywords while the search body backfill is pending, as corpusStats(terms).
+     */
+    public CorpusStats corpusStats() throws SQLException {
+        Map<String, Integer> frequencies = new HashMap<>();
+        try (ConnectionManager.Lease lease = db.read()) {
+            boolean fromKeywords = isJobPending(lease, SEARCH_BODY_JOB);
+            PreparedStatement ps = lease.prepare(fromKeywords
+                    ? "SELECT keyword, count(*) FROM note_keywords GROUP BY keyword"
+                    : "SELECT term, doc FROM note_vocab");
+            ps.setFetchSize(DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    // Keywords keep their diacritics, so two of them can fold into one term
+                    frequencies.merge(fromKeywords ? CorpusStats.fold(rs.getString(1)) : rs.getString(1),
+                            rs.getInt(2), Integer::sum);
+                }
+            }
+            return new CorpusStats(countNotes(lease), frequencies);
+        }
+    }
+
+    private static int countNotes(ConnectionManager.Lease lease) throws SQLException {
+        try (ResultSet rs = lease.prepare("SELECT count(*) FROM notes").executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // -------------------- Job checkpoints --------------------
+
+    /** Name of the job that indexes the bodies of notes saved before the search index existed */
+    public static final String SEARCH_BODY_JOB = "search-bodies";
+
+    /** True while the job has a checkpoint, i.e. it was scheduled or interrupted and has not completed */
+    public boolean isJobPending(String job) throws SQLException {
+        try (ConnectionManager.Lease lease = db.read()) {
+            return isJobPending(lease, job);
+        }
+    }
+
+    private static boolean isJobPending(ConnectionManager.Lease lease, String job) throws SQLException {
+        PreparedStatement ps = lease.prepare("SELECT 1 FROM job_checkpoints WHERE job = ?");
+        ps.setString(1, job);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /** Last note id the job finished, or 0 if it has not run or was completed */
+    public int loadCheckpoint(String job) throws SQLException {
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare("SELECT last_note_id FROM job_checkpoints WHERE job = ?");
+            ps.setString(1, job);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    public void saveCheckpoint(String job, int lastNoteId) throws SQLException {
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(
+                    "INSERT OR REPLACE INTO job_checkpoints(job, last_note_id, updated_at) VALUES(?,?,?)");
+            ps.setString(1, job);
+            ps.setInt(2, lastNoteId);
+            ps.setString(3, LocalDateTime.now().toString());
+            ps.executeUpdate();
+        }
+    }
+
+    public void clearCheckpoint(String job) throws SQLException {
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare("DELETE FROM job_checkpoints WHERE job = ?");
+            ps.setString(1, job);
             ps.executeUpdate();
         }
     }
@@ -152,28 +560,210 @@ public class NoteDao {
     public List<Note> findAll() throws SQLException {
         String sql = "SELECT * FROM notes";
         List<Note> notes = new ArrayList<>();
+        Map<Integer, Note> byId = new HashMap<>();
+
+        try (ConnectionManager.Lease lease = db.read()) {
+            try (ResultSet rs = lease.prepare(sql).executeQuery()) {
+                while (rs.next()) {
+                    Note note = readNote(rs);
+                    notes.add(note);
+                    byId.put(note.getId(), note);
+                }
+            }
 
-        try (Connection c = connect();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                Note note = new Note(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getInt("difficulty"),
-                        LocalDateTime.parse(rs.getString("created_at")),
-                        LocalDateTime.parse(rs.getString("updated_at")),
-                        Note.keywordsFromCsv(rs.getString("keywords"))
-                );
-                note.setFilePath(rs.getString("file_path"));
-                notes.add(note);
+            // One ordered pass over note_keywords instead of a query per note
+            Map<Integer, List<String>> keywords = new HashMap<>();
+            try (ResultSet rs = lease.prepare("SELECT note_id, keyword FROM note_keywords ORDER BY note_id, position")
+                    .executeQuery()) {
+                while (rs.next()) {
+                    keywords.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }
             }
+            keywords.forEach((id, list) -> {
+                Note note = byId.get(id);
+                if (note != null) note.setKeywords(list);
+            });
         }
         return notes;
+    }
+
+    // -------------------- Streaming / paging --------------------
+
+    /** Which columns a streamed Note is built from */
+    public enum Projection {
+        /** Every column, dates parsed */
+        FULL("n.id, n.title, n.difficulty, n.file_path, n.created_at, n.updated_at"),
+        /** What graph building needs: id, title, difficulty, file path and keywords; no date parsing */
+        LINKS("n.id, n.title, n.difficulty, n.file_path");
+
+        private final String sql;
+
+        Projection(String columns) {
+            this.sql = "SELECT " + columns + ", k.keyword FROM notes n"
+                    + " LEFT JOIN note_keywords k ON k.note_id = n.id"
+                    + " ORDER BY n.id, k.position";
+        }
+    }
 
+    public static final int DEFAULT_FETCH_SIZE = 500;
 
+    /**
+     * Stream every note through the action without materializing the table.
+     * Rows are read with the given fetch size, one note at a time.
+     */
+    public void forEachNote(Projection projection, int fetchSize, Consumer<Note> action) throws SQLException {
+        try (NoteCursor cursor = new NoteCursor(projection, fetchSize)) {
+            while (cursor.hasNext()) action.accept(cursor.advance());
+        }
+    }
+
+    /**
+     * Lazily streamed notes; the stream holds a pooled connection until closed,
+     * so use it in try-with-resources. SQL errors surface as IllegalStateException.
+     */
+    public Stream<Note> streamAll(Projection projection, int fetchSize) throws SQLException {
+        NoteCursor cursor = new NoteCursor(projection, fetchSize);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
     }
+
+    /**
+     * Keyset pagination: up to limit notes with id greater than afterId, in id order.
+     * Pass the last id of one page as afterId of the next; start with 0.
+     */
+    public List<Note> findPage(int afterId, int limit) throws SQLException {
+        List<Note> page = new ArrayList<>(limit);
+        Map<Integer, Note> byId = new HashMap<>();
+
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare("SELECT * FROM notes WHERE id > ? ORDER BY id LIMIT ?");
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Note note = readNote(rs);
+                    page.add(note);
+                    byId.put(note.getId(), note);
+                }
+            }
+            if (page.isEmpty()) return page;
+
+            PreparedStatement kw = lease.prepare("""
+                    SELECT note_id, keyword FROM note_keywords
+                    WHERE note_id BETWEEN ? AND ?
+                    ORDER BY note_id, position
+                    """);
+            kw.setInt(1, page.get(0).getId());
+            kw.setInt(2, page.get(page.size() - 1).getId());
+            Map<Integer, List<String>> keywords = new HashMap<>();
+            try (ResultSet rs = kw.executeQuery()) {
+                while (rs.next()) {
+                    keywords.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+            keywords.forEach((id, list) -> {
+                Note note = byId.get(id);
+                if (note != null) note.setKeywords(list);
+            });
+        }
+        return page;
+    }
+
+    /** Groups the joined note/keyword rows back into one Note per id */
+    private final class NoteCursor implements Iterator<Note>, AutoCloseable {
+        private final ConnectionManager.Lease lease;
+        private final ResultSet rs;
+        private final Projection projection;
+        private boolean onRow;
+
+        NoteCursor(Projection projection, int fetchSize) throws SQLException {
+            this.projection = projection;
+            this.lease = db.read();
+            try {
+                PreparedStatement ps = lease.prepare(projection.sql);
+                ps.setFetchSize(fetchSize);
+                this.rs = ps.executeQuery();
+                this.onRow = rs.next();
+            } catch (SQLException e) {
+                lease.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return onRow;
+        }
+
+        @Override
+        public Note next() {
+            try {
+                return advance();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to read notes", e);
+            }
+        }
+
+        Note advance() throws SQLException {
+            if (!onRow) throw new NoSuchElementException();
+
+            int id = rs.getInt("id");
+            Note note;
+            if (projection == Projection.FULL) {
+                note = readNote(rs);
+            } else {
+                note = new Note(id, rs.getString("title"), rs.getInt("difficulty"), null, null, List.of());
+                note.setFilePath(rs.getString("file_path"));
+            }
+
+            List<String> keywords = new ArrayList<>();
+            do {
+                String keyword = rs.getString("keyword");
+                if (keyword != null) keywords.add(keyword);
+                onRow = rs.next();
+            } while (onRow && rs.getInt("id") == id);
+
+            note.setKeywords(keywords);
+            return note;
+        }
+
+        @Override
+        public void close() {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            } finally {
+                lease.close();
+            }
+        }
+    }
+
+    private static Note readNote(ResultSet rs) throws SQLException {
+        Note note = new Note(
+                rs.getInt("id"),
+                rs.getString("title"),
+                rs.getInt("difficulty"),
+                LocalDateTime.parse(rs.getString("created_at")),
+                LocalDateTime.parse(rs.getString("updated_at")),
+                List.of()
+        );
+        note.setFilePath(rs.getString("file_path"));
+        return note;
+    }
+
+    private Note withKeywords(ConnectionManager.Lease lease, Note note) throws SQLException {
+        PreparedStatement ps = lease.prepare("SELECT keyword FROM note_keywords WHERE note_id = ? ORDER BY position");
+        ps.setInt(1, note.getId());
+        List<String> keywords = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) keywords.add(rs.getString(1));
+        }
+        note.setKeywords(keywords);
+        return note;
+    }
+
     public void createSessionTable() throws Exception {
         String sql = """
         CREATE TABLE IF NOT EXISTS SessionHistory (
@@ -186,8 +776,8 @@ public class NoteDao {
                 
     """;
 
-        try (var conn = DriverManager.getConnection(url);
-             var stmt = conn.createStatement()) {
+        try (var lease = db.write();
+             var stmt = lease.connection().createStatement()) {
             stmt.execute(sql);
         }
     }
@@ -198,8 +788,8 @@ public class NoteDao {
 
         String sql = "INSERT INTO SessionHistory(note_id, file_path) VALUES(?, ?)";
 
-        try (var conn = DriverManager.getConnection(url);
-             var pstmt = conn.prepareStatement(sql)) {
+        try (var lease = db.write()) {
+            var pstmt = lease.prepare(sql);
 
             pstmt.setString(1, String.valueOf(note.getId()));  // note_id as TEXT
             pstmt.setString(2, note.getFilePath());            // file_path
@@ -212,8 +802,8 @@ public class NoteDao {
     public void updateSession(Note note) {
         String sql = "UPDATE SessionHistory SET opened_at = CURRENT_TIMESTAMP WHERE note_id = ?";
 
-        try (var conn = DriverManager.getConnection(url);
-             var pstmt = conn.prepareStatement(sql)) {
+        try (var lease = db.write()) {
+            var pstmt = lease.prepare(sql);
             pstmt.setString(1, String.valueOf(note.getId()));
             int rows = pstmt.executeUpdate();
             if(rows == 0){
@@ -239,28 +829,19 @@ public class NoteDao {
         }
 
         String sql = """
-    SELECT n.id, n.title, n.difficulty, n.created_at, n.updated_at, n.keywords, n.file_path
+    SELECT n.id, n.title, n.difficulty, n.created_at, n.updated_at, n.file_path
     FROM SessionHistory s
     JOIN notes n ON s.note_id = n.id
     ORDER BY """ + " " + orderBy;
 
 
-        try (var conn = DriverManager.getConnection(url);
-             var stmt = conn.createStatement();
-             var rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Note note = new Note(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getInt("difficulty"),
-                        LocalDateTime.parse(rs.getString("created_at")),
-                        LocalDateTime.parse(rs.getString("updated_at")),
-                        Note.keywordsFromCsv(rs.getString("keywords"))
-                );
-                note.setFilePath(rs.getString("file_path"));
-                history.add(note);
+        try (var lease = db.read()) {
+            try (var rs = lease.prepare(sql).executeQuery()) {
+                while (rs.next()) {
+                    history.add(readNote(rs));
+                }
             }
+            for (Note n : history) withKeywords(lease, n);
         }
 
         return history;
@@ -269,8 +850,8 @@ public class NoteDao {
     public void incrementUsageCount(int noteId) throws SQLException {
         String sql = "UPDATE SessionHistory SET usage_count = usage_count + 1 WHERE id = ?";
 
-        try (var conn = DriverManager.getConnection(url);
-             var pstmt = conn.prepareStatement(sql)) {
+        try (var lease = db.write()) {
+            var pstmt = lease.prepare(sql);
             pstmt.setInt(1, noteId);
             int rows = pstmt.executeUpdate();
             if(rows == 0){
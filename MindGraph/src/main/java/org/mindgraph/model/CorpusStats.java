@@ -0,0 +1,48 @@
+package org.mindgraph.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Document frequencies of terms across all notes, for TF-IDF keyword ranking.
+ * Terms are folded the way the full-text index tokenizes them (lowercase, no diacritics),
+ * so lookups accept words exactly as they appear in a note.
+ */
+public class CorpusStats {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final int documents;
+    private final Map<String, Integer> frequencies; // folded term → notes containing it
+
+    public CorpusStats(int documents, Map<String, Integer> frequencies) {
+        this.documents = documents;
+        this.frequencies = frequencies;
+    }
+
+    public int getDocuments() { return documents; }
+
+    /** Number of notes containing the term; 0 for terms the corpus has never seen */
+    public int documentFrequency(String term) {
+        return frequencies.getOrDefault(fold(term), 0);
+    }
+
+    /** Smoothed inverse document frequency, ln((1 + N) / (1 + df)) + 1; never below 1 */
+    public double idf(String term) {
+        int df = Math.min(documentFrequency(term), documents);
+        return Math.log((1.0 + documents) / (1.0 + df)) + 1.0;
+    }
+
+    /** The full-text index's form of a term: lowercase with diacritics removed */
+    public static String fold(String term) {
+        String lower = term.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7f) {
+                return MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+}
@@ -0,0 +1,52 @@
+package org.mindgraph.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide keyword → int id table.
+ * Ids are only meaningful within one run, so they are never persisted.
+ */
+public final class KeywordInterner {
+
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private KeywordInterner() {}
+
+    public static int idOf(String keyword) {
+        Integer id = IDS.get(keyword);
+        return id != null ? id : IDS.computeIfAbsent(keyword, k -> NEXT_ID.getAndIncrement());
+    }
+
+    /** Sorted, duplicate-free ids for the given keywords */
+    public static int[] sortedIds(Collection<String> keywords) {
+        int[] ids = new int[keywords.size()];
+        int n = 0;
+        for (String k : keywords) ids[n++] = idOf(k);
+        Arrays.sort(ids);
+
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) ids[unique++] = ids[i];
+        }
+        return unique == n ? ids : Arrays.copyOf(ids, unique);
+    }
+
+    /** Size of the intersection of two sorted id arrays, without allocating */
+    public static int countCommon(int[] a, int[] b) {
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { common++; i++; j++; }
+        }
+        return common;
+    }
+
+    public static int size() {
+        return IDS.size();
+    }
+}
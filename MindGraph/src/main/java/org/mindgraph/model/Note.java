@@ -17,6 +17,7 @@ public class Note implements Serializable {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<String> keywords;
+    private transient int[] keywordIds; // sorted interned ids of keywords, rebuilt lazily after deserialization
     private String filePath; // path to XML/HTML content
 
     // Default constructor for a new note
@@ -48,6 +49,13 @@ public class Note implements Serializable {
         this.filePath = "";
     }
 
+    /** An independent copy with the same id, metadata and file path */
+    public Note copy() {
+        Note copy = new Note(id, title, difficulty, createdAt, updatedAt, keywords);
+        copy.filePath = filePath;
+        return copy;
+    }
+
     // --- CSV helpers ---
     public String keywordsAsCsv() {
         return String.join(",", keywords);
@@ -85,7 +93,20 @@ public class Note implements Serializable {
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
     public List<String> getKeywords() { return List.copyOf(keywords); }
-    public void setKeywords(List<String> keywords) { this.keywords = new ArrayList<>(keywords); }
+    public void setKeywords(List<String> keywords) {
+        this.keywords = new ArrayList<>(keywords);
+        this.keywordIds = KeywordInterner.sortedIds(this.keywords);
+    }
+
+    /** Sorted interned keyword ids; shared array, callers must not modify it */
+    public int[] getKeywordIds() {
+        int[] ids = keywordIds;
+        if (ids == null) {
+            ids = KeywordInterner.sortedIds(keywords);
+            keywordIds = ids;
+        }
+        return ids;
+    }
 
     public String getFilePath() { return filePath; }
     public void setFilePath(String filePath) { this.filePath = filePath; }
@@ -94,11 +115,23 @@ public class Note implements Serializable {
     public void addKeyword(String keyword) {
         if (keyword != null && !keyword.isBlank() && !keywords.contains(keyword)) {
             keywords.add(keyword);
+            keywordIds = insertSorted(getKeywordIds(), KeywordInterner.idOf(keyword));
         }
     }
 
     public void removeKeyword(String keyword) {
-        keywords.remove(keyword);
+        if (keywords.remove(keyword)) keywordIds = null; // recomputed on next access
+    }
+
+    private static int[] insertSorted(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) return ids;
+        pos = -pos - 1;
+        int[] out = new int[ids.length + 1];
+        System.arraycopy(ids, 0, out, 0, pos);
+        out[pos] = id;
+        System.arraycopy(ids, pos, out, pos + 1, ids.length - pos);
+        return out;
     }
 
     public boolean hasKeyword(String keyword) {
@@ -0,0 +1,32 @@
+package org.mindgraph.model;
+
+/** One full-text search result: the matching note plus a snippet around the match */
+public class SearchHit {
+
+    private final int noteId;
+    private final String title;
+    private final String filePath;
+    private final String snippet;
+    private final double score;
+
+    public SearchHit(int noteId, String title, String filePath, String snippet, double score) {
+        this.noteId = noteId;
+        this.title = title;
+        this.filePath = filePath;
+        this.snippet = snippet;
+        this.score = score;
+    }
+
+    public int getNoteId() { return noteId; }
+    public String getTitle() { return title; }
+    public String getFilePath() { return filePath; }
+    public String getSnippet() { return snippet; }
+
+    /** bm25 rank: lower is a better match */
+    public double getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return snippet == null || snippet.isBlank() ? title : title + " — " + snippet;
+    }
+}
@@ -0,0 +1,143 @@
+package org.mindgraph.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs blocking work (database, XML files, graph rebuilds) on virtual threads and hands
+ * the result back on the UI thread, e.g. new BackgroundTasks(Platform::runLater).
+ * Keyed tasks replace each other: starting one cancels the previous task with the same key,
+ * and a cancelled task never reaches its callbacks. Each task prints its latency when done.
+ */
+public class BackgroundTasks {
+
+    /** Blocking work that may throw; runs off the UI thread */
+    @FunctionalInterface
+    public interface Work<T> {
+        T call() throws Exception;
+    }
+
+    /** A submitted task; cancel() from the UI thread guarantees no callback runs afterwards */
+    public static final class Task {
+        private final String name;
+        private volatile Future<?> future;
+        private volatile boolean cancelled = false;
+
+        private Task(String name) {
+            this.name = name;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mindgraph-task-", 0).factory());
+    private final Executor ui;
+    private final Map<String, Task> latest = new ConcurrentHashMap<>();
+
+    /** @param ui runs callbacks on the UI thread, normally Platform::runLater */
+    public BackgroundTasks(Executor ui) {
+        this.ui = ui;
+    }
+
+    /** Run work in the background, then onSuccess or onError on the UI thread */
+    public <T> Task run(String name, Work<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return start(null, name, work, onSuccess, onError);
+    }
+
+    /**
+     * Like run, but supersedes the last task started under the same key: it is cancelled
+     * (interrupted if still running) and its result is dropped. For loads where only the
+     * newest request matters, such as opening a note while the previous one is still parsing.
+     */
+    public <T> Task runLatest(String key, String name, Work<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return start(key, name, work, onSuccess, onError);
+    }
+
+    /** Cancel the pending task under key, if any */
+    public void cancel(String key) {
+        Task task = latest.remove(key);
+        if (task != null) task.cancel();
+    }
+
+    /** Stop accepting work and wait briefly for running tasks (e.g. before exit) */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.err.println("Background tasks still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> Task start(String key, String name, Work<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        Task task = new Task(name);
+        if (key != null) {
+            Task previous = latest.put(key, task);
+            if (previous != null) previous.cancel();
+        }
+
+        long queuedNanos = System.nanoTime();
+        task.future = executor.submit(() -> {
+            long startNanos = System.nanoTime();
+            T result = null;
+            Exception error = null;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                error = e;
+            } catch (Throwable t) {
+                error = new ExecutionException(t); // errors still reach onError, so callers can reset their state
+            }
+            long workNanos = System.nanoTime() - startNanos;
+            if (task.isCancelled()) {
+                System.out.println("Task '" + name + "' cancelled after " + workNanos / 1_000_000 + " ms");
+                return;
+            }
+
+            T value = result;
+            Exception failure = error;
+            ui.execute(() -> {
+                if (key != null) latest.remove(key, task);
+                if (task.isCancelled()) return; // superseded while waiting for the UI thread
+                long uiStartNanos = System.nanoTime();
+                try {
+                    if (failure == null) {
+                        if (onSuccess != null) onSuccess.accept(value);
+                    } else {
+                        failure.printStackTrace();
+                        if (onError != null) onError.accept(failure);
+                    }
+                } finally {
+                    long now = System.nanoTime();
+                    System.out.println("Task '" + name + "' " + (failure == null ? "done" : "failed")
+                            + ": queued " + (startNanos - queuedNanos) / 1_000_000 + " ms, work "
+                            + workNanos / 1_000_000 + " ms, UI " + (now - uiStartNanos) / 1_000_000
+                            + " ms, total " + (now - queuedNanos) / 1_000_000 + " ms");
+                }
+            });
+        });
+        return task;
+    }
+}
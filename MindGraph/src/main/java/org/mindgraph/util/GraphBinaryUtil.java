@@ -0,0 +1,143 @@
+package org.mindgraph.util;
+
+import org.mindgraph.datastructure.Graph;
+import org.mindgraph.model.Note;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Compact binary storage for the note graph.
+ * Only note ids and a CSR (compressed sparse row) adjacency are written;
+ * note metadata is resolved again from the database on load.
+ *
+ * Layout (big-endian ints):
+ *  magic, version, nodeCount, edgeCount,
+ *  ids[nodeCount], offsets[nodeCount + 1], targets[edgeCount]
+ * where targets hold positions in ids and node i's edges are
+ * targets[offsets[i] .. offsets[i + 1]).
+ */
+public final class GraphBinaryUtil {
+
+    public static final int MAGIC = 0x4D475246; // "MGRF"
+    public static final int VERSION = 1;
+    private static final int HEADER_INTS = 4;
+
+    private GraphBinaryUtil() {}
+
+    /** Write the graph's ids and adjacency to file */
+    public static void save(Graph graph, File file) throws IOException {
+        write(encode(graph), file);
+    }
+
+    /** Encode the graph into a buffer ready for {@link #write}; the graph is only read here */
+    public static ByteBuffer encode(Graph graph) {
+        List<Note> notes = graph.getNotes();
+
+        int[] ids = new int[notes.size()];
+        int i = 0;
+        for (Note n : notes) ids[i++] = n.getId();
+        Arrays.sort(ids);
+
+        Map<Integer, Integer> position = new HashMap<>(ids.length * 2);
+        for (int p = 0; p < ids.length; p++) position.put(ids[p], p);
+
+        int[] offsets = new int[ids.length + 1];
+        int[] targets = new int[graph.edgeCount()];
+
+        int e = 0;
+        for (int p = 0; p < ids.length; p++) {
+            offsets[p] = e;
+            for (Note to : graph.getNeighbours(graph.getNote(ids[p]))) {
+                targets[e++] = position.get(to.getId());
+            }
+        }
+        offsets[ids.length] = e;
+
+        ByteBuffer buf = ByteBuffer.allocate(4 * (HEADER_INTS + ids.length + offsets.length + e));
+        buf.putInt(MAGIC).putInt(VERSION).putInt(ids.length).putInt(e);
+        IntBuffer ints = buf.asIntBuffer(); // view starts right after the header
+        ints.put(ids).put(offsets).put(targets);
+        buf.rewind();
+        return buf;
+    }
+
+    public static void write(ByteBuffer buf, File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    /**
+     * Read the file and rebuild the graph.
+     * Ids the resolver does not know (deleted notes) are skipped together with their edges.
+     * The file is read into a heap buffer rather than memory-mapped: a live mapping keeps the
+     * file locked on Windows until it is garbage-collected, which breaks the next save's rename.
+     *
+     * @throws IOException if the file is not a graph file of a supported version, or is
+     *                     truncated or corrupt (offsets or targets out of range)
+     */
+    public static Graph load(File file, IntFunction<Note> resolver) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < 4L * HEADER_INTS) throw new IOException("Graph file too short: " + file);
+            if (size > Integer.MAX_VALUE) throw new IOException("Graph file too large: " + file);
+
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) throw new IOException("Graph file truncated while reading: " + file);
+            }
+            IntBuffer ints = buf.flip().asIntBuffer();
+            if (ints.get(0) != MAGIC) throw new IOException("Not a MindGraph graph file: " + file);
+            if (ints.get(1) != VERSION) throw new IOException("Unsupported graph file version " + ints.get(1));
+
+            int nodeCount = ints.get(2);
+            int edgeCount = ints.get(3);
+            long expectedInts = HEADER_INTS + 2L * nodeCount + 1 + edgeCount;
+            if (nodeCount < 0 || edgeCount < 0 || ints.limit() < expectedInts) {
+                throw new IOException("Corrupt graph file: " + file);
+            }
+
+            int idsAt = HEADER_INTS;
+            int offsetsAt = idsAt + nodeCount;
+            int targetsAt = offsetsAt + nodeCount + 1;
+
+            // Offsets must run from 0 to edgeCount without going back, or the edge loops below overrun
+            if (ints.get(offsetsAt) != 0 || ints.get(offsetsAt + nodeCount) != edgeCount) {
+                throw new IOException("Corrupt graph file (edge offsets): " + file);
+            }
+            for (int p = 0; p < nodeCount; p++) {
+                if (ints.get(offsetsAt + p) > ints.get(offsetsAt + p + 1)) {
+                    throw new IOException("Corrupt graph file (edge offsets): " + file);
+                }
+            }
+
+            Note[] notes = new Note[nodeCount];
+            for (int p = 0; p < nodeCount; p++) notes[p] = resolver.apply(ints.get(idsAt + p));
+
+            Graph graph = new Graph();
+            for (int p = 0; p < nodeCount; p++) {
+                Note from = notes[p];
+                if (from == null) continue;
+                graph.addNote(from);
+                int end = ints.get(offsetsAt + p + 1);
+                for (int e = ints.get(offsetsAt + p); e < end; e++) {
+                    int target = ints.get(targetsAt + e);
+                    if (target < 0 || target >= nodeCount) {
+                        throw new IOException("Corrupt graph file (edge target " + target + "): " + file);
+                    }
+                    Note to = notes[target];
+                    if (to != null) graph.createEdge(from, to);
+                }
+            }
+            return graph;
+        }
+    }
+}
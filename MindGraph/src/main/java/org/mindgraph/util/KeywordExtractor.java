@@ -3,57 +3,130 @@ package org.mindgraph.util;
 import opennlp.tools.postag.POSModel;
 import opennlp.tools.postag.POSTaggerME;
 import opennlp.tools.tokenize.SimpleTokenizer;
+import org.mindgraph.model.CorpusStats;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 /**
  * Utility for extracting keywords (nouns) from text using OpenNLP POS tagger.
+ * The model loads once in the background (warmUp() at launch, or the first extraction).
+ * POSModel is thread-safe but POSTaggerME is not, so each extraction borrows a tagger
+ * from a pool. Results are cached per paragraph, keyed by a 64-bit hash of its text plus its
+ * length, so re-extracting a mostly unchanged note only tags the paragraphs that changed and
+ * the cache holds no copies of the text. Two paragraphs share a key with odds around 2^-64.
+ * Besides every noun, it can rank them by TF-IDF against the corpus and keep the top k.
  */
 public class KeywordExtractor {
 
-    private static POSTaggerME posTagger;
+    private static final String MODEL_PATH = "/models/en-pos-maxent.bin";
+    private static final int CACHE_PARAGRAPHS = 20_000;
 
-    static {
-        try (InputStream modelIn = KeywordExtractor.class.getResourceAsStream("/models/en-pos-maxent.bin")) {
-            if (modelIn == null) {
-                System.err.println("POS model not found in resources! Keyword extraction will be disabled.");
-            } else {
-                POSModel model = new POSModel(modelIn);
-                posTagger = new POSTaggerME(model);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to initialize POS tagger", e);
-        }
+    /** Keywords kept per note in top-k mode */
+    public static final int DEFAULT_TOP_K = 15;
+
+    private static volatile CompletableFuture<POSModel> model;
+    private static final Queue<POSTaggerME> idleTaggers = new ConcurrentLinkedQueue<>();
+
+    // Paragraph key → its nouns in text order, repeats included; least recently used paragraphs are evicted
+    private static final Map<ParagraphKey, String[]> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ParagraphKey, String[]> eldest) {
+                    return size() > CACHE_PARAGRAPHS;
+                }
+            });
+
+    private record ParagraphKey(long hash, int length) {}
+
+    /** Start loading the POS model on a background thread; later calls do nothing */
+    public static void warmUp() {
+        model();
+    }
+
+    /** True once the model is loaded (or known to be missing), so extraction will not wait */
+    public static boolean isReady() {
+        return model().isDone();
     }
 
     /**
      * Extracts keywords (nouns) from the given text.
      * Returns empty list if POS model is not loaded.
+     * Paragraphs (lines) are tagged separately; cached ones are not tagged again.
      *
      * @param text Text to extract keywords from.
      * @return A list of unique keywords in lowercase.
      */
     public static List<String> extractKeywords(String text) {
-        if (text == null || text.isBlank() || posTagger == null) {
-            return Collections.emptyList();
+        return new ArrayList<>(termFrequencies(text).keySet());
+    }
+
+    /**
+     * Top-k mode: the k keywords of the text with the highest TF-IDF, best first.
+     * Generic nouns that most notes share rank low and are dropped.
+     *
+     * @param stats Document frequencies of at least the text's nouns, see NoteDao.corpusStats.
+     */
+    public static List<String> extractKeywords(String text, CorpusStats stats, int k) {
+        return topKeywords(termFrequencies(text), stats, k);
+    }
+
+    /** Each noun of the text with its number of occurrences, in first-occurrence order */
+    public static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        if (text == null || text.isBlank()) {
+            return counts;
+        }
+        POSModel posModel = model().join();
+        if (posModel == null) {
+            return counts;
         }
 
-        SimpleTokenizer tokenizer = SimpleTokenizer.INSTANCE;
-        String[] tokens = tokenizer.tokenize(text);
-        String[] tags = posTagger.tag(tokens);
+        POSTaggerME tagger = null;
+        try {
+            int start = 0;
+            while (start <= text.length()) {
+                int end = text.indexOf('\n', start);
+                if (end < 0) end = text.length();
 
-        Set<String> keywords = new LinkedHashSet<>(); // preserves order
-        for (int i = 0; i < tokens.length; i++) {
-            // Keep nouns (NN, NNS, NNP, NNPS) and ignore very short words
-            if (tags[i].startsWith("NN") && tokens[i].length() > 2) {
-                keywords.add(tokens[i].toLowerCase());
+                if (!isBlank(text, start, end)) {
+                    ParagraphKey key = new ParagraphKey(hash(text, start, end), end - start);
+                    String[] found = cache.get(key);
+                    if (found == null) {
+                        if (tagger == null) tagger = borrowTagger(posModel);
+                        found = nouns(tagger, text.substring(start, end));
+                        cache.put(key, found);
+                    }
+                    count(found, counts);
+                }
+                start = end + 1;
             }
+        } finally {
+            if (tagger != null) idleTaggers.offer(tagger);
+        }
+        return counts;
+    }
+
+    /**
+     * The k terms with the highest TF-IDF, best first; ties keep first-occurrence order.
+     * TF is sublinear (1 + ln count) so one noun repeated throughout a long note cannot crowd out the rest.
+     */
+    public static List<String> topKeywords(Map<String, Integer> termFrequencies, CorpusStats stats, int k) {
+        List<Map.Entry<String, Double>> scored = new ArrayList<>(termFrequencies.size());
+        for (Map.Entry<String, Integer> e : termFrequencies.entrySet()) {
+            double tf = 1.0 + Math.log(e.getValue());
+            scored.add(Map.entry(e.getKey(), tf * stats.idf(e.getKey())));
         }
+        scored.sort(Map.Entry.<String, Double>comparingByValue().reversed()); // stable
 
-        return new ArrayList<>(keywords);
+        List<String> top = new ArrayList<>(Math.min(k, scored.size()));
+        for (int i = 0; i < scored.size() && i < k; i++) {
+            top.add(scored.get(i).getKey());
+        }
+        return top;
     }
 
     /**
@@ -65,4 +138,116 @@ public class KeywordExtractor {
     public static String extractAsCsv(String text) {
         return extractKeywords(text).stream().collect(Collectors.joining(","));
     }
-}
\ No newline at end of file
+
+    /**
+     * A tagger of its own for bulk jobs that keep one per worker thread; it skips the
+     * paragraph cache. Waits for the model, returns null if the model is unavailable.
+     */
+    public static Tagger newTagger() {
+        POSModel posModel = model().join();
+        return posModel != null ? new Tagger(new POSTaggerME(posModel)) : null;
+    }
+
+    /** Keyword extraction on a dedicated POSTaggerME; not thread-safe, use one per thread */
+    public static final class Tagger {
+        private final POSTaggerME tagger;
+
+        private Tagger(POSTaggerME tagger) {
+            this.tagger = tagger;
+        }
+
+        /** Unique lowercase nouns of the sentences, in order; each sentence is tagged on its own */
+        public List<String> extractKeywords(List<String> sentences) {
+            return new ArrayList<>(termFrequencies(sentences).keySet());
+        }
+
+        /** Each noun of the sentences with its number of occurrences, in first-occurrence order */
+        public Map<String, Integer> termFrequencies(List<String> sentences) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (String sentence : sentences) {
+                count(nouns(tagger, sentence), counts);
+            }
+            return counts;
+        }
+    }
+
+    /** Nouns (NN, NNS, NNP, NNPS) longer than two characters, lowercased, in text order with repeats */
+    private static String[] nouns(POSTaggerME tagger, String paragraph) {
+        String[] tokens = SimpleTokenizer.INSTANCE.tokenize(paragraph);
+        String[] tags = tagger.tag(tokens);
+
+        List<String> nouns = new ArrayList<>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (tags[i].startsWith("NN") && tokens[i].length() > 2) {
+                nouns.add(tokens[i].toLowerCase());
+            }
+        }
+        return nouns.toArray(new String[0]);
+    }
+
+    private static void count(String[] nouns, Map<String, Integer> counts) {
+        for (String noun : nouns) {
+            counts.merge(noun, 1, Integer::sum);
+        }
+    }
+
+    private static POSTaggerME borrowTagger(POSModel posModel) {
+        POSTaggerME tagger = idleTaggers.poll();
+        return tagger != null ? tagger : new POSTaggerME(posModel);
+    }
+
+    private static CompletableFuture<POSModel> model() {
+        CompletableFuture<POSModel> m = model;
+        if (m == null) {
+            synchronized (KeywordExtractor.class) {
+                if (model == null) {
+                    model = CompletableFuture.supplyAsync(KeywordExtractor::loadModel, task -> {
+                        Thread loader = new Thread(task, "pos-model-loader");
+                        loader.setDaemon(true);
+                        loader.start();
+                    });
+                }
+                m = model;
+            }
+        }
+        return m;
+    }
+
+    /** The POS model, or null if it is missing or broken (extraction is then disabled) */
+    private static POSModel loadModel() {
+        long startNanos = System.nanoTime();
+        try (InputStream modelIn = KeywordExtractor.class.getResourceAsStream(MODEL_PATH)) {
+            if (modelIn == null) {
+                System.err.println("POS model not found in resources! Keyword extraction will be disabled.");
+                return null;
+            }
+            POSModel loaded = new POSModel(modelIn);
+            System.out.println("POS model loaded in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+            return loaded;
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("Failed to initialize POS tagger. Keyword extraction will be disabled.");
+            return null;
+        }
+    }
+
+    /** 64-bit FNV-1a over the chars of text[start, end), finished with the MurmurHash3 mixer */
+    private static long hash(String text, int start, int end) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h = (h ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static boolean isBlank(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+}
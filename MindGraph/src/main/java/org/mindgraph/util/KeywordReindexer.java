@@ -0,0 +1,167 @@
+package org.mindgraph.util;
+
+import org.mindgraph.db.NoteDao;
+import org.mindgraph.model.CorpusStats;
+import org.mindgraph.model.Note;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Re-extracts the keywords of every note from its file, e.g. after a POS model upgrade.
+ * Notes are read a page at a time in id order; each page is parsed, split into sentences
+ * and tagged on a fork-join pool with one tagger per worker, then the keywords and the
+ * parsed text (for the search index) are written back in one transaction. The last finished id is checkpointed per page, so an interrupted run
+ * resumes where it stopped instead of starting over. With topK > 0 each note keeps only
+ * its topK keywords by TF-IDF, ranked against one snapshot of the corpus statistics.
+ */
+public class KeywordReindexer {
+
+    public static final String DEFAULT_JOB = "keywords";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Outcome of one run; complete is false if it was interrupted and can be resumed */
+    public record Result(int notes, int updated, int failed, boolean complete, long elapsedMs) {
+        public double notesPerSecond() {
+            return elapsedMs == 0 ? notes : notes * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Re-keyed %d of %d notes (%d failed)%s in %d ms, %.0f notes/s",
+                    updated, notes, failed, complete ? "" : ", interrupted", elapsedMs, notesPerSecond());
+        }
+    }
+
+    private final NoteDao noteDao;
+    private final int threads;
+    private final int batchSize;
+    private final int topK;
+
+    public KeywordReindexer(NoteDao noteDao) {
+        this(noteDao, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_BATCH_SIZE,
+                KeywordExtractor.DEFAULT_TOP_K);
+    }
+
+    /** @param topK keywords kept per note by TF-IDF, or 0 to keep every noun */
+    public KeywordReindexer(NoteDao noteDao, int threads, int batchSize, int topK) {
+        this.noteDao = noteDao;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+        this.topK = Math.max(0, topK);
+    }
+
+    /**
+     * Re-key every note after the job's checkpoint (all notes when restart is true).
+     * Notes whose file is missing or unreadable keep their keywords and count as failed.
+     * Stops after the current page when the calling thread is interrupted.
+     */
+    public Result run(String job, boolean restart) throws SQLException {
+        long startNanos = System.nanoTime();
+        if (KeywordExtractor.newTagger() == null) {
+            System.err.println("POS model unavailable, keywords left unchanged");
+            return new Result(0, 0, 0, false, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+
+        int afterId = restart ? 0 : noteDao.loadCheckpoint(job);
+        // One snapshot for the whole run, so notes are ranked alike even as the job re-indexes bodies
+        CorpusStats stats = topK > 0 ? noteDao.corpusStats() : null;
+        if (afterId > 0) System.out.println("Resuming keyword job '" + job + "' after note " + afterId);
+
+        int notes = 0;
+        int updated = 0;
+        int failed = 0;
+        boolean complete = false;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ThreadLocal<KeywordExtractor.Tagger> taggers = ThreadLocal.withInitial(KeywordExtractor::newTagger);
+        try {
+            while (true) {
+                List<Note> page = noteDao.findPage(afterId, batchSize);
+                if (page.isEmpty()) {
+                    complete = true;
+                    break;
+                }
+
+                List<Rekeyed> rekeyed = pool.submit(() -> page.parallelStream()
+                        .map(note -> rekey(note, taggers.get(), stats))
+                        .toList()).get();
+
+                Map<Integer, List<String>> batch = new LinkedHashMap<>();
+                Map<Integer, String> bodies = new LinkedHashMap<>();
+                for (int i = 0; i < page.size(); i++) {
+                    if (rekeyed.get(i) == null) continue;
+                    batch.put(page.get(i).getId(), rekeyed.get(i).keywords());
+                    bodies.put(page.get(i).getId(), rekeyed.get(i).body());
+                }
+                noteDao.updateKeywords(batch, bodies);
+
+                afterId = page.get(page.size() - 1).getId();
+                noteDao.saveCheckpoint(job, afterId);
+                notes += page.size();
+                updated += batch.size();
+                failed += page.size() - batch.size();
+
+                long elapsedMs = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+                System.out.printf("Keyword job '%s': %d notes, %.0f notes/s%n", job, notes, notes * 1000.0 / elapsedMs);
+
+                if (Thread.currentThread().isInterrupted()) break;
+            }
+            if (complete) noteDao.clearCheckpoint(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new SQLException("Keyword extraction failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Result result = new Result(notes, updated, failed, complete, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.println(result);
+        return result;
+    }
+
+    /** A note's new keywords and the plain text they came from */
+    private record Rekeyed(List<String> keywords, String body) {}
+
+    /** Keywords and text of the note's file, or null if it cannot be read */
+    private Rekeyed rekey(Note note, KeywordExtractor.Tagger tagger, CorpusStats stats) {
+        String path = note.getFilePath();
+        if (path == null || path.isBlank()) return null;
+        File file = new File(path);
+        if (!file.isFile()) return null;
+        try {
+            String text = NoteXmlUtil.extract(file).text();
+            Map<String, Integer> counts = tagger.termFrequencies(sentences(text));
+            return new Rekeyed(stats != null ? KeywordExtractor.topKeywords(counts, stats, topK)
+                    : new ArrayList<>(counts.keySet()), text);
+        } catch (Exception e) {
+            System.err.println("Skipping unreadable note file " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Sentences of each line; BreakIterator alone does not break at line ends */
+    static List<String> sentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        BreakIterator breaks = BreakIterator.getSentenceInstance(Locale.ENGLISH);
+        for (String line : text.split("\n")) {
+            if (line.isBlank()) continue;
+            breaks.setText(line);
+            int start = breaks.first();
+            for (int end = breaks.next(); end != BreakIterator.DONE; start = end, end = breaks.next()) {
+                String sentence = line.substring(start, end).strip();
+                if (!sentence.isEmpty()) sentences.add(sentence);
+            }
+        }
+        return sentences;
+    }
+}
@@ -0,0 +1,148 @@
+package org.mindgraph.util;
+
+import org.mindgraph.db.NoteDao;
+import org.mindgraph.model.CorpusStats;
+import org.mindgraph.model.Note;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Bulk import of a folder tree of note files (.xml / .rnote) into the database.
+ * Files are parsed and their keywords extracted on a worker pool (one tagger per worker)
+ * while the calling thread writes the parsed metadata, keywords and search text in
+ * batched transactions, so parsing and inserting overlap. With topK > 0 each new note
+ * keeps its topK keywords by TF-IDF against the corpus as it was when the import started.
+ * XML files whose root element is not &lt;note&gt; are skipped and counted as failed.
+ */
+public class NoteImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** Outcome of one import run */
+    public record Result(int files, int inserted, int updated, int failed, long elapsedMs) {
+        public double notesPerSecond() {
+            return elapsedMs == 0 ? inserted + updated : (inserted + updated) * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %d of %d files (%d new, %d updated, %d failed) in %d ms, %.0f notes/s",
+                    inserted + updated, files, inserted, updated, failed, elapsedMs, notesPerSecond());
+        }
+    }
+
+    private final NoteDao noteDao;
+    private final int threads;
+    private final int batchSize;
+    private final int topK;
+
+    public NoteImporter(NoteDao noteDao) {
+        this(noteDao, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_BATCH_SIZE,
+                KeywordExtractor.DEFAULT_TOP_K);
+    }
+
+    /** @param topK keywords kept per note by TF-IDF, or 0 to keep every noun */
+    public NoteImporter(NoteDao noteDao, int threads, int batchSize, int topK) {
+        this.noteDao = noteDao;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+        this.topK = Math.max(0, topK);
+    }
+
+    /** Walk the folder, parse every note file and register it; unreadable files are counted and skipped */
+    public Result importFolder(Path root) throws IOException, SQLException {
+        long startNanos = System.nanoTime();
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).filter(NoteImporter::isNoteFile).toList();
+        }
+
+        int inserted = 0;
+        int updated = 0;
+        int failed = 0;
+
+        CorpusStats stats = topK > 0 ? noteDao.corpusStats() : null;
+        ThreadLocal<KeywordExtractor.Tagger> taggers = ThreadLocal.withInitial(KeywordExtractor::newTagger);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "note-import");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // Keep at most a couple of batches parsed or parsing, so memory stays flat on huge folders
+            CompletionService<NoteXmlUtil.Extract> parsed = new ExecutorCompletionService<>(pool);
+            int window = Math.min(files.size(), 2 * batchSize);
+            int submitted = 0;
+            while (submitted < window) submitParse(parsed, files.get(submitted++), taggers, stats);
+
+            List<Note> batch = new ArrayList<>(batchSize);
+            List<String> bodies = new ArrayList<>(batchSize);
+            for (int i = 0; i < files.size(); i++) {
+                Future<NoteXmlUtil.Extract> next = parsed.take();
+                if (submitted < files.size()) submitParse(parsed, files.get(submitted++), taggers, stats);
+                try {
+                    NoteXmlUtil.Extract extract = next.get();
+                    batch.add(extract.note());
+                    bodies.add(extract.text());
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.err.println("Skipping unreadable note file: " + e.getCause().getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    int added = noteDao.importBatch(batch, bodies);
+                    inserted += added;
+                    updated += batch.size() - added;
+                    batch.clear();
+                    bodies.clear();
+                }
+            }
+            int added = noteDao.importBatch(batch, bodies);
+            inserted += added;
+            updated += batch.size() - added;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Import interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Result result = new Result(files.size(), inserted, updated, failed,
+                (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.println(result);
+        return result;
+    }
+
+    /** Parse the file on a worker and set the note's keywords; they stay empty without a POS model */
+    private void submitParse(CompletionService<NoteXmlUtil.Extract> parsed, Path file,
+                             ThreadLocal<KeywordExtractor.Tagger> taggers, CorpusStats stats) {
+        parsed.submit(() -> {
+            NoteXmlUtil.Extract extract = NoteXmlUtil.extract(file.toFile());
+            KeywordExtractor.Tagger tagger = taggers.get();
+            if (tagger != null) {
+                Map<String, Integer> counts = tagger.termFrequencies(KeywordReindexer.sentences(extract.text()));
+                extract.note().setKeywords(stats != null
+                        ? KeywordExtractor.topKeywords(counts, stats, topK) : new ArrayList<>(counts.keySet()));
+            }
+            return extract;
+        });
+    }
+
+    private static boolean isNoteFile(Path p) {
+        String name = p.getFileName().toString().toLowerCase();
+        return name.endsWith(".xml") || name.endsWith(".rnote");
+    }
+}
@@ -1,155 +1,386 @@
 package org.mindgraph.util;
 
 import org.fxmisc.richtext.InlineCssTextArea;
+import org.fxmisc.richtext.model.ReadOnlyStyledDocumentBuilder;
+import org.fxmisc.richtext.model.SegmentOps;
 import org.fxmisc.richtext.model.StyleSpan;
 import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyledDocument;
+import org.fxmisc.richtext.model.StyledSegment;
 import org.mindgraph.model.Note;
-import org.w3c.dom.*;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
+/**
+ * Reads note files with StAX and writes them with a buffered streaming writer,
+ * one element at a time, so memory follows the note's text rather than a DOM of it. Format:
+ * <pre>
+ * &lt;note&gt;
+ *     &lt;metadata&gt;&lt;id/&gt;&lt;title/&gt;&lt;difficulty/&gt;&lt;createdAt/&gt;&lt;updatedAt/&gt;&lt;/metadata&gt;
+ *     &lt;content&gt;
+ *         &lt;paragraph style="..."&gt;&lt;c style="..."&gt;text&lt;/c&gt;...&lt;/paragraph&gt;
+ *     &lt;/content&gt;
+ * &lt;/note&gt;
+ * </pre>
+ */
 public class NoteXmlUtil {
 
-    /** Save a Note along with styled content (no keywords in XML) */
-    public static void save(Note note, InlineCssTextArea editor, File file) throws Exception {
-        if (note == null || editor == null || file == null) return;
-
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document xml = dBuilder.newDocument();
-
-        Element root = xml.createElement("note");
-        xml.appendChild(root);
-
-        // Metadata (keywords are only in DB, not here)
-        Element meta = xml.createElement("metadata");
-        root.appendChild(meta);
-        append(meta, "id", note.getId() > 0 ? String.valueOf(note.getId()) : "", xml);
-        append(meta, "title", note.getTitle(), xml);
-        append(meta, "difficulty", String.valueOf(note.getDifficulty()), xml);
-        append(meta, "createdAt", safe(note.getCreatedAt()), xml);
-        append(meta, "updatedAt", safe(LocalDateTime.now()), xml);
-
-        // Content
-        Element contentEl = xml.createElement("content");
-        root.appendChild(contentEl);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HEADER_BUFFER_SIZE = 4 * 1024; // metadata sits in the first few hundred bytes
+    private static final String INDENT = "    ";
+    private static final String LINK_STYLE = "; -fx-fill: blue; -fx-underline: true; keyword-link";
+
+    // StAX does not specify factories as thread-safe, and the importer, the revision scan and the
+    // keyword job read notes in parallel: one factory per thread. newDefaultFactory() is the JDK's
+    // built-in implementation and skips the service lookup, so a short-lived thread's copy is cheap.
+    private static final ThreadLocal<XMLInputFactory> INPUT = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    });
+
+    /** One styled run of text inside a paragraph */
+    public record Run(String text, String style) {}
+
+    /** One editor paragraph: its paragraph style and its runs */
+    public record Paragraph(String style, List<Run> runs) {}
+
+    /**
+     * Save a Note along with styled content (no keywords in XML).
+     * Returns the plain text that was written, one line per paragraph, for the search index.
+     */
+    public static String save(Note note, InlineCssTextArea editor, File file) throws Exception {
+        if (note == null || editor == null || file == null) return null;
+
+        List<Paragraph> paragraphs = paragraphs(editor);
+        write(note, paragraphs, file);
+        return plainText(paragraphs);
+    }
 
+    /** The editor's content as immutable paragraphs; FX thread only, the result can go to any thread */
+    public static List<Paragraph> paragraphs(InlineCssTextArea editor) {
+        List<Paragraph> paragraphs = new ArrayList<>(editor.getParagraphs().size());
         for (int i = 0; i < editor.getParagraphs().size(); i++) {
             String paragraphText = editor.getParagraph(i).getText();
             String paragraphStyle = editor.getParagraph(i).getParagraphStyle();
 
-            Element para = xml.createElement("paragraph");
-            para.setAttribute("style", paragraphStyle != null ? paragraphStyle : "");
-            contentEl.appendChild(para);
-
             int absStart = editor.getAbsolutePosition(i, 0);
             StyleSpans<String> spans = editor.getStyleSpans(absStart, absStart + paragraphText.length());
 
+            List<Run> runs = new ArrayList<>(spans.getSpanCount());
             int pos = 0;
             for (StyleSpan<String> span : spans) {
-                String css = span.getStyle() != null ? span.getStyle() : "";
                 String chunk = paragraphText.substring(pos, pos + span.getLength());
                 pos += span.getLength();
-
-                Element node = xml.createElement("c");
-                node.setAttribute("style", css);
-                node.setTextContent(chunk);
-                para.appendChild(node);
+                runs.add(new Run(chunk, span.getStyle()));
             }
+            paragraphs.add(new Paragraph(paragraphStyle, runs));
         }
+        return paragraphs;
+    }
 
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.transform(new DOMSource(xml), new StreamResult(file));
+    /**
+     * Write a note file from metadata and paragraphs; updatedAt is stamped with now.
+     * Hand-written rather than XMLStreamWriter: the JDK writer escapes one char per call,
+     * which made large notes slower to save than the DOM path.
+     */
+    public static void write(Note note, List<Paragraph> paragraphs, File file) throws IOException {
+        try (Writer w = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            w.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n<note>\n");
+
+            // Metadata (keywords are only in DB, not here)
+            w.write(INDENT + "<metadata>\n");
+            element(w, "id", note.getId() > 0 ? String.valueOf(note.getId()) : "");
+            element(w, "title", note.getTitle());
+            element(w, "difficulty", String.valueOf(note.getDifficulty()));
+            element(w, "createdAt", safe(note.getCreatedAt()));
+            element(w, "updatedAt", safe(LocalDateTime.now()));
+            w.write(INDENT + "</metadata>\n");
+
+            // Content
+            w.write(INDENT + "<content>\n");
+            for (Paragraph para : paragraphs) {
+                w.write(INDENT + INDENT + "<paragraph style=\"");
+                escape(w, para.style(), true);
+                w.write("\">\n");
+                for (Run run : para.runs()) {
+                    w.write(INDENT + INDENT + INDENT + "<c style=\"");
+                    escape(w, run.style(), true);
+                    w.write("\">");
+                    escape(w, run.text(), false);
+                    w.write("</c>\n");
+                }
+                w.write(INDENT + INDENT + "</paragraph>\n");
+            }
+            w.write(INDENT + "</content>\n</note>\n");
+        }
     }
 
     /** Load a Note and restore styled content, then apply keyword links from DB-loaded Note */
     public static void load(Note note, InlineCssTextArea editor, File file) throws Exception {
         if (note == null || editor == null || file == null) return;
+        apply(readForEditor(note, file), note, editor);
+    }
 
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document xml = dBuilder.parse(file);
-        xml.getDocumentElement().normalize();
+    /** A parsed note ready for the editor: metadata from the file plus the whole styled document */
+    public record LoadedNote(Note metadata, StyledDocument<String, String, String> document) {}
+
+    /**
+     * Parse a note file and build its complete styled document, keyword links included.
+     * Touches no JavaFX control, so it can run off the FX thread; the note is only read.
+     */
+    public static LoadedNote readForEditor(Note note, File file) throws IOException, XMLStreamException {
+        // Parse into a copy so a note shared with the graph is only changed on the FX thread
+        Note metadata = new Note(note.getId(), note.getTitle(), note.getDifficulty(),
+                note.getCreatedAt(), note.getUpdatedAt(), note.getKeywords());
+        List<Paragraph> paragraphs = withKeywordLinks(read(metadata, file), note.getKeywords());
+
+        ReadOnlyStyledDocumentBuilder<String, String, String> builder =
+                new ReadOnlyStyledDocumentBuilder<>(SegmentOps.styledTextOps(), "");
+        for (Paragraph para : paragraphs) {
+            List<StyledSegment<String, String>> segments = new ArrayList<>(para.runs().size());
+            for (Run run : para.runs()) {
+                if (!run.text().isEmpty()) segments.add(new StyledSegment<>(run.text(), run.style()));
+            }
+            // A paragraph needs at least one segment, even when it is empty
+            if (segments.isEmpty()) {
+                segments.add(new StyledSegment<>("", para.runs().isEmpty() ? "" : para.runs().get(0).style()));
+            }
+            builder.addParagraph(segments, para.style());
+        }
+        if (paragraphs.isEmpty()) builder.addParagraph(List.of(new StyledSegment<>("", "")), "");
 
-        Element root = xml.getDocumentElement();
-        Element meta = (Element) root.getElementsByTagName("metadata").item(0);
+        return new LoadedNote(metadata, builder.build());
+    }
 
-        // restore only metadata needed from XML (DB remains truth for keywords)
-        note.setId(parseIntSafe(textOf(meta, "id"), note.getId()));
-        note.setTitle(textOf(meta, "title"));
-        note.setDifficulty(parseIntSafe(textOf(meta, "difficulty"), note.getDifficulty()));
-        note.setCreatedAt(parseDateSafe(textOf(meta, "createdAt")));
-        note.setUpdatedAt(parseDateSafe(textOf(meta, "updatedAt")));
+    /**
+     * Show a parsed note: one replace of the whole editor document (a single change event)
+     * and the file's metadata copied onto the note. FX thread only.
+     */
+    public static void apply(LoadedNote loaded, Note note, InlineCssTextArea editor) {
+        editor.replace(0, editor.getLength(), loaded.document());
+
+        Note metadata = loaded.metadata();
+        note.setId(metadata.getId());
+        note.setTitle(metadata.getTitle());
+        note.setDifficulty(metadata.getDifficulty());
+        note.setCreatedAt(metadata.getCreatedAt());
+        note.setUpdatedAt(metadata.getUpdatedAt());
+    }
 
-        // Restore content
-        editor.clear();
-        NodeList paras = root.getElementsByTagName("paragraph");
-        for (int i = 0; i < paras.getLength(); i++) {
-            Element para = (Element) paras.item(i);
-            String paragraphStyle = para.getAttribute("style");
+    /**
+     * Stream a note file: metadata goes into the note (DB remains truth for keywords),
+     * content comes back as paragraphs. No JavaFX involved, so any thread may call this.
+     */
+    public static List<Paragraph> read(Note note, File file) throws IOException, XMLStreamException {
+        return read(note, file, false);
+    }
 
-            if (i > 0) editor.appendText("\n");
+    /** @param noteRootOnly reject documents whose root element is not &lt;note&gt; */
+    private static List<Paragraph> read(Note note, File file, boolean noteRootOnly) throws IOException, XMLStreamException {
+        List<Paragraph> paragraphs = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE)) {
+            XMLStreamReader r = INPUT.get().createXMLStreamReader(in);
+            try {
+                boolean atRoot = true;
+                while (r.hasNext()) {
+                    if (r.next() != XMLStreamConstants.START_ELEMENT) continue;
+                    if (atRoot && noteRootOnly && !r.getLocalName().equals("note")) {
+                        throw new IOException("Not a note file (root <" + r.getLocalName() + ">): " + file);
+                    }
+                    atRoot = false;
+                    switch (r.getLocalName()) {
+                        case "metadata" -> readMetadata(r, note);
+                        case "paragraph" -> paragraphs.add(readParagraph(r));
+                        default -> { }
+                    }
+                }
+            } finally {
+                r.close();
+            }
+        }
+        return paragraphs;
+    }
 
-            NodeList runs = para.getChildNodes();
-            for (int j = 0; j < runs.getLength(); j++) {
-                if (!(runs.item(j) instanceof Element)) continue;
-                Element run = (Element) runs.item(j);
+    /**
+     * Header-only read: the metadata block and nothing after it, so the cost does not grow
+     * with the note's content. No JavaFX involved; the file path is set to the absolute path.
+     */
+    public static Note readHeader(File file) throws IOException, XMLStreamException {
+        Note note = new Note();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), HEADER_BUFFER_SIZE)) {
+            XMLStreamReader r = INPUT.get().createXMLStreamReader(in);
+            try {
+                while (r.hasNext()) {
+                    if (r.next() != XMLStreamConstants.START_ELEMENT) continue;
+                    String name = r.getLocalName();
+                    if (name.equals("metadata")) {
+                        readMetadata(r, note);
+                        break;
+                    }
+                    if (name.equals("content")) break; // no metadata before the content
+                }
+            } finally {
+                r.close();
+            }
+        }
+        note.setFilePath(file.getAbsolutePath());
+        return note;
+    }
 
-                String style = run.getAttribute("style");
-                String text = run.getTextContent();
+    /** Metadata and plain text of a note file, read without an editor */
+    public record Extract(Note note, String text) {}
+
+    /**
+     * Read the metadata and the plain text (one line per paragraph) of a note file.
+     * Safe to call from worker threads; the note's file path is set to the absolute path.
+     * Other XML documents (root element not &lt;note&gt;) are rejected with an IOException.
+     */
+    public static Extract extract(File file) throws Exception {
+        Note note = new Note();
+        List<Paragraph> paragraphs = read(note, file, true);
+        if (note.getTitle() == null || note.getTitle().isBlank()) note.setTitle("Untitled");
+        note.setFilePath(file.getAbsolutePath());
+        return new Extract(note, plainText(paragraphs));
+    }
 
-                int start = editor.getLength();
-                editor.appendText(text);
+    /** Paragraph texts joined by newlines, the same text the editor holds */
+    public static String plainText(List<Paragraph> paragraphs) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < paragraphs.size(); i++) {
+            if (i > 0) text.append('\n');
+            for (Run run : paragraphs.get(i).runs()) text.append(run.text());
+        }
+        return text.toString();
+    }
 
-                editor.setStyle(start, editor.getLength(), style != null ? style : "");
+    /** Reader is on &lt;metadata&gt;; leaves it on &lt;/metadata&gt; */
+    private static void readMetadata(XMLStreamReader r, Note note) throws XMLStreamException {
+        while (r.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = r.getLocalName();
+            String value = r.getElementText();
+            switch (name) {
+                case "id" -> note.setId(parseIntSafe(value, note.getId()));
+                case "title" -> note.setTitle(value);
+                case "difficulty" -> note.setDifficulty(parseIntSafe(value, note.getDifficulty()));
+                case "createdAt" -> note.setCreatedAt(parseDateSafe(value));
+                case "updatedAt" -> note.setUpdatedAt(parseDateSafe(value));
+                default -> { }
             }
-
-            editor.setParagraphStyle(i, paragraphStyle != null ? paragraphStyle : "");
         }
+    }
 
-        // Apply keyword links (from DB -> Note object)
-        applyKeywordLinks(editor, note.getKeywords());
+    /** Reader is on &lt;paragraph&gt;; leaves it on &lt;/paragraph&gt;. Whitespace between runs is ignored */
+    private static Paragraph readParagraph(XMLStreamReader r) throws XMLStreamException {
+        String paragraphStyle = orEmpty(r.getAttributeValue(null, "style"));
+        List<Run> runs = new ArrayList<>();
+        while (r.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String style = orEmpty(r.getAttributeValue(null, "style"));
+            runs.add(new Run(r.getElementText(), style));
+        }
+        return new Paragraph(paragraphStyle, runs);
     }
 
-    /** Apply keyword link styling without removing existing styles */
-    private static void applyKeywordLinks(InlineCssTextArea editor, List<String> keywords) {
-        if (keywords == null || keywords.isEmpty()) return;
+    /**
+     * Keyword link styling without removing existing styles: runs are split where a
+     * keyword occurrence starts or ends and the linked parts get LINK_STYLE appended.
+     */
+    private static List<Paragraph> withKeywordLinks(List<Paragraph> paragraphs, List<String> keywords) {
+        if (keywords == null || keywords.isEmpty()) return paragraphs;
 
-        String content = editor.getText();
+        String content = plainText(paragraphs).toLowerCase();
+        BitSet linked = new BitSet(content.length());
         for (String kw : keywords) {
+            if (kw.isEmpty()) continue;
+            String needle = kw.toLowerCase();
             int idx = 0;
-            while ((idx = content.toLowerCase().indexOf(kw.toLowerCase(), idx)) >= 0) {
-                int start = idx;
-                int end = idx + kw.length();
-                String currentStyle = editor.getStyleOfChar(start);
-                if (currentStyle == null) currentStyle = "";
-                String linkStyle = currentStyle + "; -fx-fill: blue; -fx-underline: true; keyword-link";
-                editor.setStyle(start, end, linkStyle);
-                idx = end;
+            while ((idx = content.indexOf(needle, idx)) >= 0) {
+                linked.set(idx, idx + needle.length());
+                idx += needle.length();
             }
         }
+        if (linked.isEmpty()) return paragraphs;
+
+        List<Paragraph> result = new ArrayList<>(paragraphs.size());
+        int offset = 0;
+        for (Paragraph para : paragraphs) {
+            List<Run> runs = new ArrayList<>(para.runs().size());
+            for (Run run : para.runs()) {
+                int start = offset;
+                int end = offset + run.text().length();
+                int pos = start;
+                while (pos < end) {
+                    boolean isLink = linked.get(pos);
+                    int next = Math.min(end, isLink ? linked.nextClearBit(pos) : nextSetBit(linked, pos, end));
+                    String text = next - pos == run.text().length() ? run.text() : run.text().substring(pos - start, next - start);
+                    runs.add(new Run(text, isLink ? run.style() + LINK_STYLE : run.style()));
+                    pos = next;
+                }
+                if (start == end) runs.add(run);
+                offset = end;
+            }
+            result.add(new Paragraph(para.style(), runs));
+            offset++; // the newline between paragraphs
+        }
+        return result;
+    }
+
+    private static int nextSetBit(BitSet bits, int from, int end) {
+        int next = bits.nextSetBit(from);
+        return next < 0 ? end : next;
     }
 
     // --- Helpers ---
-    private static void append(Element parent, String name, String value, Document xml) {
-        Element e = xml.createElement(name);
-        e.setTextContent(value != null ? value : "");
-        parent.appendChild(e);
+    private static void element(Writer w, String name, String value) throws IOException {
+        w.write(INDENT + INDENT + "<" + name + ">");
+        escape(w, value, false);
+        w.write("</" + name + ">\n");
+    }
+
+    /** Write s with XML escapes, copying unescaped stretches in one call */
+    private static void escape(Writer w, String s, boolean attribute) throws IOException {
+        if (s == null) return;
+        int from = 0;
+        for (int i = 0; i < s.length(); i++) {
+            String entity = switch (s.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> attribute ? "&quot;" : null;
+                case '\r' -> "&#13;"; // keep CR through the parser's line-end normalization
+                case '\t' -> attribute ? "&#9;" : null;
+                case '\n' -> attribute ? "&#10;" : null;
+                default -> null;
+            };
+            if (entity == null) continue;
+            w.write(s, from, i - from);
+            w.write(entity);
+            from = i + 1;
+        }
+        w.write(s, from, s.length() - from);
     }
 
-    private static String textOf(Element parent, String tag) {
-        Node n = parent.getElementsByTagName(tag).item(0);
-        return n == null ? "" : n.getTextContent();
+    private static String orEmpty(String s) {
+        return s != null ? s : "";
     }
 
     private static String safe(LocalDateTime dt) {
@@ -163,4 +394,4 @@ public class NoteXmlUtil {
     private static LocalDateTime parseDateSafe(String s) {
         try { return LocalDateTime.parse(s); } catch (Exception e) { return LocalDateTime.now(); }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package org.mindgraph.util;
+
+import org.mindgraph.db.NoteDao;
+import org.mindgraph.model.Note;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Fills in the search index bodies of notes saved before the index existed; DatabaseSetup
+ * gives those notes title-only rows and schedules this job. Notes are read a page at a time
+ * in id order, their files parsed on a fork-join pool, and the texts written in one
+ * transaction per page. The last finished id is checkpointed per page, so a run cut short
+ * by exit resumes on the next launch; the checkpoint is removed once every note is done.
+ * Until then NoteDao.corpusStats takes document frequencies from note_keywords instead.
+ */
+public class SearchIndexBackfill {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Outcome of one run; complete is false if it was interrupted and can be resumed */
+    public record Result(int notes, int indexed, int failed, boolean complete, long elapsedMs) {
+        public double notesPerSecond() {
+            return elapsedMs == 0 ? notes : notes * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Indexed bodies of %d of %d notes (%d failed)%s in %d ms, %.0f notes/s",
+                    indexed, notes, failed, complete ? "" : ", interrupted", elapsedMs, notesPerSecond());
+        }
+    }
+
+    private final NoteDao noteDao;
+    private final int threads;
+    private final int batchSize;
+
+    public SearchIndexBackfill(NoteDao noteDao) {
+        this(noteDao, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_BATCH_SIZE);
+    }
+
+    public SearchIndexBackfill(NoteDao noteDao, int threads, int batchSize) {
+        this.noteDao = noteDao;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Index the bodies of the notes after the job's checkpoint; does nothing unless the job
+     * is scheduled. Notes whose file is missing or unreadable keep an empty body and count
+     * as failed. Stops after the current page when the calling thread is interrupted.
+     */
+    public Result run() throws SQLException {
+        long startNanos = System.nanoTime();
+        if (!noteDao.isJobPending(NoteDao.SEARCH_BODY_JOB)) return new Result(0, 0, 0, true, 0);
+
+        int afterId = noteDao.loadCheckpoint(NoteDao.SEARCH_BODY_JOB);
+        if (afterId > 0) System.out.println("Resuming search body backfill after note " + afterId);
+
+        int notes = 0;
+        int indexed = 0;
+        int failed = 0;
+        boolean complete = false;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (true) {
+                List<Note> page = noteDao.findPage(afterId, batchSize);
+                if (page.isEmpty()) {
+                    complete = true;
+                    break;
+                }
+
+                List<String> texts = pool.submit(() -> page.parallelStream()
+                        .map(SearchIndexBackfill::textOf)
+                        .toList()).get();
+
+                Map<Integer, String> bodies = new LinkedHashMap<>();
+                for (int i = 0; i < page.size(); i++) {
+                    if (texts.get(i) != null) bodies.put(page.get(i).getId(), texts.get(i));
+                }
+                indexed += noteDao.indexMissingBodies(bodies);
+
+                afterId = page.get(page.size() - 1).getId();
+                noteDao.saveCheckpoint(NoteDao.SEARCH_BODY_JOB, afterId);
+                notes += page.size();
+                failed += page.size() - bodies.size();
+
+                if (Thread.currentThread().isInterrupted()) break;
+            }
+            if (complete) noteDao.clearCheckpoint(NoteDao.SEARCH_BODY_JOB);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new SQLException("Reading note files failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Result result = new Result(notes, indexed, failed, complete, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.println(result);
+        return result;
+    }
+
+    /** Plain text of the note's file, or null if it cannot be read */
+    private static String textOf(Note note) {
+        String path = note.getFilePath();
+        if (path == null || path.isBlank()) return null;
+        File file = new File(path);
+        if (!file.isFile()) return null;
+        try {
+            return NoteXmlUtil.extract(file).text();
+        } catch (Exception e) {
+            System.err.println("Skipping unreadable note file " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
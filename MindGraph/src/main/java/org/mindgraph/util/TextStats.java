@@ -0,0 +1,50 @@
+package org.mindgraph.util;
+
+/**
+ * Character and word counts of a document, kept up to date from edits.
+ * A word is a maximal run of non-whitespace, as in text.trim().split("\\s+").
+ * Each edit only looks at the changed text plus one character on either side,
+ * so typing costs O(change) no matter how large the document is.
+ */
+public class TextStats {
+
+    /** Marks a missing neighbour character at the start or end of the document */
+    public static final int NONE = -1;
+
+    private long chars = 0;
+    private long words = 0;
+
+    /** Recount from scratch */
+    public void reset(CharSequence text) {
+        chars = text.length();
+        words = countWords(NONE, text, NONE);
+    }
+
+    /**
+     * Apply one edit.
+     * @param before the character just before the edit, or NONE
+     * @param removed the text that was replaced
+     * @param inserted the text that replaced it
+     * @param after the character just after the edit, or NONE
+     */
+    public void apply(int before, CharSequence removed, CharSequence inserted, int after) {
+        chars += inserted.length() - removed.length();
+        words += countWords(before, inserted, after) - countWords(before, removed, after);
+    }
+
+    public long getChars() { return chars; }
+    public long getWords() { return words; }
+
+    /** Word starts in before + middle + after; the before char only serves as context */
+    private static long countWords(int before, CharSequence middle, int after) {
+        long count = 0;
+        boolean prevSpace = before == NONE || Character.isWhitespace(before);
+        for (int i = 0; i < middle.length(); i++) {
+            boolean space = Character.isWhitespace(middle.charAt(i));
+            if (!space && prevSpace) count++;
+            prevSpace = space;
+        }
+        if (after != NONE && !Character.isWhitespace(after) && prevSpace) count++;
+        return count;
+    }
+}
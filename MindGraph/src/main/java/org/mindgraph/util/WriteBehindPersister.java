@@ -0,0 +1,117 @@
+package org.mindgraph.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces "state changed" signals into occasional background writes of one file.
+ * Every markDirty() within the delay window is served by a single write, which goes
+ * to a temp file first and is then renamed over the target so readers never see
+ * a half-written file. Pending changes are flushed on close and at JVM shutdown.
+ * Create one with start(), which registers the shutdown hook once the instance is built.
+ */
+public class WriteBehindPersister implements AutoCloseable {
+
+    /** Produces the file contents; called on the writer thread */
+    @FunctionalInterface
+    public interface Writer {
+        void write(File target) throws IOException;
+    }
+
+    private final File target;
+    private final File tempFile;
+    private final Writer writer;
+    private final long delayMillis;
+    private final ScheduledExecutorService executor;
+    private Thread shutdownHook; // set by start()
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Object writeLock = new Object();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private WriteBehindPersister(File target, Writer writer, long delayMillis) {
+        this.target = target;
+        this.tempFile = new File(target.getPath() + ".tmp");
+        this.writer = writer;
+        this.delayMillis = delayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-" + target.getName());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** A persister for target that also flushes at JVM shutdown until it is closed */
+    public static WriteBehindPersister start(File target, Writer writer, long delayMillis) {
+        WriteBehindPersister persister = new WriteBehindPersister(target, writer, delayMillis);
+        persister.shutdownHook = new Thread(persister::flush, "write-behind-flush-" + target.getName());
+        Runtime.getRuntime().addShutdownHook(persister.shutdownHook);
+        return persister;
+    }
+
+    /** Record that the state changed; the write happens later on the background thread */
+    public void markDirty() {
+        requested.incrementAndGet();
+        dirty.set(true);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::writeIfDirty, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Write any pending change now, on the calling thread */
+    public void flush() {
+        writeIfDirty();
+    }
+
+    private void writeIfDirty() {
+        scheduled.set(false);
+        synchronized (writeLock) {
+            if (!dirty.getAndSet(false)) return;
+            try {
+                writer.write(tempFile);
+                moveIntoPlace();
+                written.incrementAndGet();
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                dirty.set(true); // retry with the next change or flush
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void moveIntoPlace() throws IOException {
+        try {
+            Files.move(tempFile.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // --- Counters ---
+    public long getRequestedWrites() { return requested.get(); }
+    public long getCompletedWrites() { return written.get(); }
+    public long getFailedWrites() { return failed.get(); }
+    public long getWritesAvoided() { return Math.max(0, requested.get() - written.get() - failed.get()); }
+
+    @Override
+    public void close() {
+        flush();
+        executor.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignore) { /* already shutting down */ }
+    }
+}
@@ -0,0 +1,77 @@
+package org.mindgraph.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Timing shared by the benchmarks in this package. Each case is warmed up, then the
+ * median of several timed runs is printed. Not a JMH harness, so treat the numbers as ratios.
+ */
+final class Bench {
+
+    static final int WARMUP = 5;
+    static final int RUNS = 9;
+
+    static long sink; // results feed this so the JIT cannot drop the work
+
+    private Bench() {}
+
+    /** First argument as a size multiplier, default 1 */
+    static int scale(String[] args) {
+        return args.length > 0 ? Math.max(1, Integer.parseInt(args[0])) : 1;
+    }
+
+    static void banner(String name, int scale) {
+        System.out.printf("MindGraph %s benchmark, scale %d, %d cores, %s %s%n%n", name, scale,
+                Runtime.getRuntime().availableProcessors(), System.getProperty("java.vm.name"),
+                System.getProperty("java.version"));
+    }
+
+    static void footer() {
+        System.out.println("\n(sink " + sink + ")");
+    }
+
+    static void header(String title) {
+        System.out.println(title);
+    }
+
+    /** Times both cases and prints the baseline / optimized ratio */
+    static void compare(String baselineName, LongSupplier baseline, String optimizedName, LongSupplier optimized) {
+        compare(baselineName, baseline, optimizedName, optimized, WARMUP, RUNS);
+    }
+
+    static void compare(String baselineName, LongSupplier baseline, String optimizedName, LongSupplier optimized,
+                        int warmup, int runs) {
+        double base = medianMs(baseline, warmup, runs);
+        double opt = medianMs(optimized, warmup, runs);
+        System.out.printf("  %-20s %9.2f ms%n  %-20s %9.2f ms   (%.1fx)%n%n",
+                baselineName, base, optimizedName, opt, base / opt);
+    }
+
+    /** Times one case on its own, for measurements without a baseline */
+    static double time(String name, LongSupplier work, int warmup, int runs) {
+        double ms = medianMs(work, warmup, runs);
+        System.out.printf("  %-20s %9.3f ms%n", name, ms);
+        return ms;
+    }
+
+    static double medianMs(LongSupplier work, int warmup, int runs) {
+        for (int i = 0; i < warmup; i++) sink += work.getAsLong();
+        double[] ms = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            sink += work.getAsLong();
+            ms[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(ms);
+        return ms[runs / 2];
+    }
+
+    /** A random lowercase word of 3 to 8 letters */
+    static String word(Random random) {
+        char[] w = new char[3 + random.nextInt(6)];
+        for (int i = 0; i < w.length; i++) w[i] = (char) ('a' + random.nextInt(26));
+        return new String(w);
+    }
+}
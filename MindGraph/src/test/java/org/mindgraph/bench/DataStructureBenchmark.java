@@ -0,0 +1,226 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.datastructure.IntHashSet;
+import org.mindgraph.datastructure.LinkRangeIndex;
+import org.mindgraph.datastructure.MinHashIndex;
+import org.mindgraph.datastructure.TitleMatcher;
+import org.mindgraph.datastructure.UnionFind;
+import org.mindgraph.util.TextStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mindgraph.bench.Bench.compare;
+import static org.mindgraph.bench.Bench.header;
+import static org.mindgraph.bench.Bench.word;
+
+/**
+ * Reproducible micro-benchmarks for the custom data structures against the straightforward
+ * code they replaced. Inputs come from fixed seeds; see Bench for how cases are timed.
+ *
+ * Run after mvn test-compile:
+ *   java -cp target/classes:target/test-classes org.mindgraph.bench.DataStructureBenchmark [scale]
+ * scale (default 1) multiplies the input sizes.
+ */
+public class DataStructureBenchmark {
+
+    public static void main(String[] args) {
+        int scale = Bench.scale(args);
+        Bench.banner("data structure", scale);
+
+        intSet(200_000 * scale);
+        titleMatching(500 * scale, 50_000);
+        linkRanges(2_000 * scale, 2_000);
+        textStats(200_000 * scale, 200);
+        relatedPairs(2_000 * scale);
+        unionFind(1_000_000 * scale);
+
+        Bench.footer();
+    }
+
+    // -------------------- Cases --------------------
+
+    /** Graph adjacency (int-indexed graph core): IntHashSet vs HashSet<Integer> for add / contains / remove */
+    private static void intSet(int n) {
+        int[] values = new Random(1).ints(n, 0, n * 4).toArray();
+        header("Int set, " + n + " add + contains + remove");
+        compare("HashSet<Integer>", () -> {
+            Set<Integer> set = new HashSet<>();
+            long hits = 0;
+            for (int v : values) set.add(v);
+            for (int v : values) if (set.contains(v + 1)) hits++;
+            for (int v : values) set.remove(v);
+            return hits + set.size();
+        }, "IntHashSet", () -> {
+            IntHashSet set = new IntHashSet();
+            long hits = 0;
+            for (int v : values) set.add(v);
+            for (int v : values) if (set.contains(v + 1)) hits++;
+            for (int v : values) set.remove(v);
+            return hits + set.size();
+        });
+    }
+
+    /** Link marking: one regex per title vs one Aho-Corasick pass */
+    private static void titleMatching(int titles, int words) {
+        Random random = new Random(2);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < titles; i++) names.add(word(random) + (i % 3 == 0 ? " " + word(random) : ""));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(random.nextInt(20) == 0 ? names.get(random.nextInt(titles)) : word(random)).append(' ');
+        }
+        String doc = text.toString();
+        List<Pattern> patterns = names.stream()
+                .map(t -> Pattern.compile("\\b" + Pattern.quote(t) + "(?:s|es)?\\b", Pattern.CASE_INSENSITIVE))
+                .toList();
+
+        header("Title matching, " + titles + " titles over " + doc.length() + " chars");
+        compare("regex per title", () -> {
+            long found = 0;
+            for (Pattern p : patterns) {
+                Matcher m = p.matcher(doc);
+                while (m.find()) found++;
+            }
+            return found;
+        }, "TitleMatcher+build", () -> TitleMatcher.build(names, Function.identity()).findAll(doc, t -> true).size());
+    }
+
+    /** Typing in a linked note: shift every later range vs Fenwick-tree offsets */
+    private static void linkRanges(int ranges, int edits) {
+        Random random = new Random(3);
+        int[] starts = new int[ranges];
+        int pos = 0;
+        for (int i = 0; i < ranges; i++) {
+            pos += 5 + random.nextInt(40);
+            starts[i] = pos;
+            pos += 4 + random.nextInt(8);
+        }
+        int length = pos;
+        int[] editAt = random.ints(edits, 0, length).toArray();
+
+        header("Link ranges, " + ranges + " ranges, " + edits + " single-char inserts");
+        compare("shift array", () -> {
+            int[] s = starts.clone();
+            int[] e = new int[ranges];
+            for (int i = 0; i < ranges; i++) e[i] = s[i] + 6;
+            for (int at : editAt) {
+                for (int i = 0; i < ranges; i++) {
+                    if (s[i] >= at) {
+                        s[i]++;
+                        e[i]++;
+                    }
+                }
+            }
+            return s[ranges - 1];
+        }, "LinkRangeIndex", () -> {
+            LinkRangeIndex<Integer> index = new LinkRangeIndex<>(ranges);
+            for (int i = 0; i < ranges; i++) index.add(starts[i], starts[i] + 4, i);
+            for (int at : editAt) index.edit(at, 0, 1);
+            return index.size();
+        });
+    }
+
+    /** Status bar counts: recount the document per keystroke vs incremental updates */
+    private static void textStats(int chars, int keystrokes) {
+        Random random = new Random(4);
+        StringBuilder text = new StringBuilder(chars);
+        while (text.length() < chars) text.append(word(random)).append(random.nextInt(10) == 0 ? '\n' : ' ');
+        String doc = text.toString();
+
+        header("Text stats, " + doc.length() + " chars, " + keystrokes + " keystrokes");
+        compare("full recount", () -> {
+            long words = 0;
+            for (int k = 0; k < keystrokes; k++) words += doc.trim().split("\\s+").length;
+            return words;
+        }, "TextStats", () -> {
+            TextStats stats = new TextStats();
+            stats.reset(doc);
+            for (int k = 0; k < keystrokes; k++) {
+                int at = 1 + (k * 7919) % (doc.length() - 2);
+                stats.apply(doc.charAt(at - 1), "", "x", doc.charAt(at));
+            }
+            return stats.getWords();
+        });
+    }
+
+    /** Related notes: exact Jaccard over all pairs vs MinHash/LSH candidates */
+    private static void relatedPairs(int notes) {
+        Random random = new Random(5);
+        int[][] sets = new int[notes][];
+        for (int i = 0; i < notes; i++) {
+            Set<Integer> ids = new HashSet<>();
+            int topic = random.nextInt(notes / 10 + 1) * 40;
+            while (ids.size() < 15) ids.add(random.nextInt(3) == 0 ? random.nextInt(50_000) : topic + random.nextInt(20));
+            sets[i] = ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+
+        header("Related pairs, " + notes + " notes of 15 keywords");
+        compare("all pairs", () -> {
+            long pairs = 0;
+            for (int a = 0; a < notes; a++) {
+                for (int b = a + 1; b < notes; b++) {
+                    if (MinHashIndex.jaccard(sets[a], sets[b]) >= 0.5) pairs++;
+                }
+            }
+            return pairs;
+        }, "MinHashIndex", () -> {
+            MinHashIndex index = new MinHashIndex(32, 4, 200, 0x6d696e64L);
+            for (int i = 0; i < notes; i++) index.put(i, sets[i]);
+            long pairs = 0;
+            for (int a = 0; a < notes; a++) {
+                for (int b : index.candidates(a).toArray()) {
+                    if (b > a && MinHashIndex.jaccard(sets[a], sets[b]) >= 0.5) pairs++;
+                }
+            }
+            return pairs;
+        });
+    }
+
+    /** Kruskal's spanning forest components: map-based parent pointers vs array union-find */
+    private static void unionFind(int n) {
+        int[][] edges = new int[n][];
+        Random random = new Random(6);
+        for (int i = 0; i < n; i++) edges[i] = new int[]{random.nextInt(n), random.nextInt(n)};
+
+        header("Union-find, " + n + " nodes, " + n + " random unions");
+        compare("HashMap parents", () -> {
+            Map<Integer, Integer> parent = new HashMap<>();
+            long joined = 0;
+            for (int[] e : edges) {
+                int a = root(parent, e[0]);
+                int b = root(parent, e[1]);
+                if (a != b) {
+                    parent.put(a, b);
+                    joined++;
+                }
+            }
+            return joined;
+        }, "UnionFind", () -> {
+            UnionFind sets = new UnionFind(n);
+            long joined = 0;
+            for (int[] e : edges) if (sets.union(e[0], e[1])) joined++;
+            return joined;
+        });
+    }
+
+    /** Root with path halving, as UnionFind does, so only the storage differs */
+    private static int root(Map<Integer, Integer> parent, int x) {
+        Integer p;
+        while ((p = parent.get(x)) != null) {
+            Integer grandparent = parent.get(p);
+            if (grandparent == null) return p;
+            parent.put(x, grandparent);
+            x = grandparent;
+        }
+        return x;
+    }
+}
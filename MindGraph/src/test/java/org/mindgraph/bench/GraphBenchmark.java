@@ -0,0 +1,164 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.datastructure.Graph;
+import org.mindgraph.model.Note;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.mindgraph.bench.Bench.compare;
+import static org.mindgraph.bench.Bench.header;
+
+/**
+ * Graph-level benchmarks: Graph on its int-indexed core against LegacyGraph, the
+ * HashMap-of-Note object graph it replaced, on the same generated notes and edges.
+ * Notes carry 15 keywords from a shared vocabulary and a difficulty of 1 to 5, edges
+ * are random, so weights and the MST look like a real vault's. See Bench for timing.
+ *
+ * Run after mvn test-compile:
+ *   java -cp target/classes:target/test-classes:$(deps) org.mindgraph.bench.GraphBenchmark [scale]
+ * scale (default 1) multiplies the note and edge counts.
+ */
+public class GraphBenchmark {
+
+    private static final int KEYWORDS_PER_NOTE = 15;
+    private static final int VOCABULARY = 5_000;
+
+    public static void main(String[] args) {
+        int scale = Bench.scale(args);
+        Bench.banner("graph", scale);
+
+        Note[] notes = notes(20_000 * scale, new Random(11));
+        int[][] edges = edges(notes.length, 10, new Random(12));
+        build(notes, edges);
+        lookups(notes, edges);
+        removals(notes, edges);
+        mst(notes, edges);
+
+        // About a million edges: the size the parallel weighting and sort are meant for
+        Note[] large = notes(100_000 * scale, new Random(13));
+        int[][] largeEdges = edges(large.length, 10, new Random(14));
+        largeMst(large, largeEdges);
+
+        Bench.footer();
+    }
+
+    // -------------------- Cases --------------------
+
+    /** Adding every note and edge from scratch, as a rebuild or graph file load does */
+    private static void build(Note[] notes, int[][] edges) {
+        header("Build, " + notes.length + " notes, " + edges.length + " edges");
+        compare("LegacyGraph", () -> legacy(notes, edges).getNeighbours(notes[0]).size(),
+                "Graph", () -> graph(notes, edges).edgeCount());
+    }
+
+    /** Link queries: containsEdge both ways and a neighbour list per edge */
+    private static void lookups(Note[] notes, int[][] edges) {
+        LegacyGraph legacy = legacy(notes, edges);
+        Graph graph = graph(notes, edges);
+        header("Lookups, " + edges.length + " x (2 containsEdge + getNeighbours)");
+        compare("LegacyGraph", () -> {
+            long found = 0;
+            for (int[] e : edges) {
+                if (legacy.containsEdge(notes[e[0]], notes[e[1]])) found++;
+                if (legacy.containsEdge(notes[e[1]], notes[e[0]])) found++;
+                found += legacy.getNeighbours(notes[e[0]]).size();
+            }
+            return found;
+        }, "Graph", () -> {
+            long found = 0;
+            for (int[] e : edges) {
+                if (graph.containsEdge(notes[e[0]], notes[e[1]])) found++;
+                if (graph.containsEdge(notes[e[1]], notes[e[0]])) found++;
+                found += graph.getNeighbours(notes[e[0]]).size();
+            }
+            return found;
+        });
+    }
+
+    /** Deleting notes: every neighbour list scanned vs in-edge sets; includes the build either way */
+    private static void removals(Note[] notes, int[][] edges) {
+        int step = 100; // 1% of the notes
+        header("Build + remove " + notes.length / step + " notes");
+        compare("LegacyGraph", () -> {
+            LegacyGraph g = legacy(notes, edges);
+            for (int i = 0; i < notes.length; i += step) g.removeNode(notes[i]);
+            return g.getNeighbours(notes[1]).size();
+        }, "Graph", () -> {
+            Graph g = graph(notes, edges);
+            for (int i = 0; i < notes.length; i += step) g.removeNode(notes[i]);
+            return g.edgeCount();
+        }, 2, 5);
+    }
+
+    /** Minimum spanning tree from cold: Graph's caches are dropped before every run */
+    private static void mst(Note[] notes, int[][] edges) {
+        LegacyGraph legacy = legacy(notes, edges);
+        Graph graph = graph(notes, edges);
+        header("MST, " + notes.length + " notes, " + edges.length + " edges");
+        compare("LegacyGraph", () -> legacy.getMinimumSpanningTree().size(), "Graph", () -> {
+            graph.invalidate();
+            return graph.getMinimumSpanningTree().size();
+        });
+    }
+
+    /** Cold MST at about 1M edges; fewer runs, since the baseline takes seconds per run */
+    private static void largeMst(Note[] notes, int[][] edges) {
+        LegacyGraph legacy = legacy(notes, edges);
+        Graph graph = graph(notes, edges);
+        header("MST, " + notes.length + " notes, " + edges.length + " edges");
+        compare("LegacyGraph", () -> legacy.getMinimumSpanningTree().size(), "Graph", () -> {
+            graph.invalidate();
+            return graph.getMinimumSpanningTree().size();
+        }, 1, 3);
+    }
+
+    // -------------------- Inputs --------------------
+
+    static LegacyGraph legacy(Note[] notes, int[][] edges) {
+        LegacyGraph g = new LegacyGraph();
+        for (Note n : notes) g.addNote(n);
+        for (int[] e : edges) g.createEdge(notes[e[0]], notes[e[1]]);
+        return g;
+    }
+
+    static Graph graph(Note[] notes, int[][] edges) {
+        Graph g = new Graph();
+        for (Note n : notes) g.addNote(n);
+        for (int[] e : edges) g.createEdge(notes[e[0]], notes[e[1]]);
+        return g;
+    }
+
+    /** Notes 1..n, each with 15 distinct keywords drawn from the shared vocabulary */
+    static Note[] notes(int n, Random random) {
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) vocabulary[i] = Bench.word(random) + i;
+
+        LocalDateTime now = LocalDateTime.now();
+        Note[] notes = new Note[n];
+        for (int i = 0; i < n; i++) {
+            List<String> keywords = new ArrayList<>(KEYWORDS_PER_NOTE);
+            while (keywords.size() < KEYWORDS_PER_NOTE) {
+                String k = vocabulary[random.nextInt(VOCABULARY)];
+                if (!keywords.contains(k)) keywords.add(k);
+            }
+            notes[i] = new Note(i + 1, "Note " + (i + 1), 1 + random.nextInt(5), now, now, keywords);
+        }
+        return notes;
+    }
+
+    /** degree random out-edges per note, self-loops excluded (duplicates are possible, as in a vault) */
+    static int[][] edges(int n, int degree, Random random) {
+        int[][] edges = new int[n * degree][];
+        int k = 0;
+        for (int from = 0; from < n; from++) {
+            for (int d = 0; d < degree; d++) {
+                int to = random.nextInt(n - 1);
+                edges[k++] = new int[]{from, to >= from ? to + 1 : to};
+            }
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,93 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.model.Note;
+
+import java.util.*;
+
+/**
+ * The object graph Graph used before its int-indexed core: a HashMap of Note to neighbour
+ * list, with MST weights and union-find on Note keys. Copied as it was, as the baseline.
+ */
+class LegacyGraph {
+    private final Map<Note, List<Note>> notesGraph = new HashMap<>();
+
+    record Edge(Note from, Note to, double weight) {}
+
+    void addNote(Note note) {
+        notesGraph.computeIfAbsent(note, k -> new ArrayList<>());
+    }
+
+    void removeNode(Note note) {
+        notesGraph.values().forEach(neighbours -> neighbours.remove(note));
+        notesGraph.remove(note);
+    }
+
+    void createEdge(Note baseNote, Note linkNote) {
+        addNote(baseNote);
+        addNote(linkNote);
+        List<Note> neighbours = notesGraph.get(baseNote);
+        if (!neighbours.contains(linkNote)) neighbours.add(linkNote);
+    }
+
+    List<Note> getNeighbours(Note note) {
+        return notesGraph.getOrDefault(note, List.of());
+    }
+
+    boolean containsEdge(Note from, Note to) {
+        return notesGraph.containsKey(from) && notesGraph.get(from).contains(to);
+    }
+
+    List<Edge> getWeightedEdges() {
+        List<Edge> edges = new ArrayList<>();
+        for (Map.Entry<Note, List<Note>> entry : notesGraph.entrySet()) {
+            Note from = entry.getKey();
+            for (Note to : entry.getValue()) {
+                edges.add(new Edge(from, to, calculateWeight(from, to)));
+            }
+        }
+        return edges;
+    }
+
+    private double calculateWeight(Note n1, Note n2) {
+        Set<String> commonKeywords = new HashSet<>(n1.getKeywords());
+        commonKeywords.retainAll(n2.getKeywords());
+        double similarity = commonKeywords.size();
+        double difficultyDiff = Math.abs(n1.getDifficulty() - n2.getDifficulty());
+        return difficultyDiff - similarity;
+    }
+
+    List<Edge> getMinimumSpanningTree() {
+        List<Edge> edges = getWeightedEdges();
+        edges.sort(Comparator.comparingDouble(Edge::weight));
+
+        UnionFind uf = new UnionFind(notesGraph.keySet());
+        List<Edge> mst = new ArrayList<>();
+        for (Edge e : edges) {
+            if (uf.union(e.from(), e.to())) mst.add(e);
+        }
+        return mst;
+    }
+
+    private static class UnionFind {
+        private final Map<Note, Note> parent = new HashMap<>();
+
+        UnionFind(Set<Note> notes) {
+            for (Note n : notes) parent.put(n, n);
+        }
+
+        Note find(Note n) {
+            if (parent.get(n) != n) {
+                parent.put(n, find(parent.get(n))); // path compression
+            }
+            return parent.get(n);
+        }
+
+        boolean union(Note a, Note b) {
+            Note rootA = find(a);
+            Note rootB = find(b);
+            if (rootA == rootB) return false;
+            parent.put(rootA, rootB);
+            return true;
+        }
+    }
+}
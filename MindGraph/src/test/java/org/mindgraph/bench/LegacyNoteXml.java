@@ -0,0 +1,120 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.model.Note;
+import org.mindgraph.util.NoteXmlUtil;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The DOM code NoteXmlUtil used before StAX, copied as the baseline. Save and load
+ * worked on the editor; here they take and return NoteXmlUtil paragraphs instead, so
+ * the benchmark runs without JavaFX and both sides do the same work.
+ */
+final class LegacyNoteXml {
+
+    private LegacyNoteXml() {}
+
+    static void save(Note note, List<NoteXmlUtil.Paragraph> paragraphs, File file) throws Exception {
+        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+        Document xml = dBuilder.newDocument();
+
+        Element root = xml.createElement("note");
+        xml.appendChild(root);
+
+        Element meta = xml.createElement("metadata");
+        root.appendChild(meta);
+        append(meta, "id", note.getId() > 0 ? String.valueOf(note.getId()) : "", xml);
+        append(meta, "title", note.getTitle(), xml);
+        append(meta, "difficulty", String.valueOf(note.getDifficulty()), xml);
+        append(meta, "createdAt", safe(note.getCreatedAt()), xml);
+        append(meta, "updatedAt", safe(LocalDateTime.now()), xml);
+
+        Element contentEl = xml.createElement("content");
+        root.appendChild(contentEl);
+
+        for (NoteXmlUtil.Paragraph paragraph : paragraphs) {
+            Element para = xml.createElement("paragraph");
+            para.setAttribute("style", paragraph.style() != null ? paragraph.style() : "");
+            contentEl.appendChild(para);
+
+            for (NoteXmlUtil.Run run : paragraph.runs()) {
+                Element node = xml.createElement("c");
+                node.setAttribute("style", run.style() != null ? run.style() : "");
+                node.setTextContent(run.text());
+                para.appendChild(node);
+            }
+        }
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(xml), new StreamResult(file));
+    }
+
+    static List<NoteXmlUtil.Paragraph> load(Note note, File file) throws Exception {
+        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+        Document xml = dBuilder.parse(file);
+        xml.getDocumentElement().normalize();
+
+        Element root = xml.getDocumentElement();
+        Element meta = (Element) root.getElementsByTagName("metadata").item(0);
+
+        note.setId(parseIntSafe(textOf(meta, "id"), note.getId()));
+        note.setTitle(textOf(meta, "title"));
+        note.setDifficulty(parseIntSafe(textOf(meta, "difficulty"), note.getDifficulty()));
+        note.setCreatedAt(parseDateSafe(textOf(meta, "createdAt")));
+        note.setUpdatedAt(parseDateSafe(textOf(meta, "updatedAt")));
+
+        List<NoteXmlUtil.Paragraph> paragraphs = new ArrayList<>();
+        NodeList paras = root.getElementsByTagName("paragraph");
+        for (int i = 0; i < paras.getLength(); i++) {
+            Element para = (Element) paras.item(i);
+            List<NoteXmlUtil.Run> runs = new ArrayList<>();
+            NodeList children = para.getChildNodes();
+            for (int j = 0; j < children.getLength(); j++) {
+                if (!(children.item(j) instanceof Element run)) continue;
+                runs.add(new NoteXmlUtil.Run(run.getTextContent(), run.getAttribute("style")));
+            }
+            paragraphs.add(new NoteXmlUtil.Paragraph(para.getAttribute("style"), runs));
+        }
+        return paragraphs;
+    }
+
+    private static void append(Element parent, String name, String value, Document xml) {
+        Element e = xml.createElement(name);
+        e.setTextContent(value != null ? value : "");
+        parent.appendChild(e);
+    }
+
+    private static String textOf(Element parent, String tag) {
+        Node n = parent.getElementsByTagName(tag).item(0);
+        return n == null ? "" : n.getTextContent();
+    }
+
+    private static String safe(LocalDateTime dt) {
+        return dt == null ? "" : dt.toString();
+    }
+
+    private static int parseIntSafe(String s, int def) {
+        try { return Integer.parseInt(s); } catch (Exception e) { return def; }
+    }
+
+    private static LocalDateTime parseDateSafe(String s) {
+        try { return LocalDateTime.parse(s); } catch (Exception e) { return LocalDateTime.now(); }
+    }
+}
@@ -0,0 +1,136 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.controller.GraphController;
+import org.mindgraph.db.NoteDao;
+import org.mindgraph.model.Note;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.mindgraph.bench.Bench.header;
+import static org.mindgraph.bench.Bench.medianMs;
+
+/**
+ * GraphController.buildGraphFromDb(true) on scratch SQLite vaults of growing size, against
+ * the keyword → title scan it replaced (every keyword of every note compared with every
+ * title). Each note has 15 keywords, 3 of them other notes' titles, so about three links
+ * per note. The new side includes its related-note (MinHash) pass; both read the notes
+ * from the database. The baseline is quadratic and skipped above BASELINE_LIMIT notes.
+ *
+ * Run after mvn test-compile:
+ *   java -cp target/classes:target/test-classes:$(deps) org.mindgraph.bench.LinkingBenchmark [scale]
+ * scale (default 1) multiplies the note counts.
+ */
+public class LinkingBenchmark {
+
+    private static final int[] NOTE_COUNTS = {1_000, 2_000, 4_000, 8_000, 16_000, 32_000, 64_000};
+    private static final int BASELINE_LIMIT = 8_000;
+    private static final int KEYWORDS_PER_NOTE = 15;
+    private static final int TITLE_KEYWORDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int scale = Bench.scale(args);
+        Bench.banner("linking", scale);
+
+        header(String.format("  %8s %14s %14s %9s", "notes", "title scan", "buildGraph", "speedup"));
+        for (int count : NOTE_COUNTS) {
+            int n = count * scale;
+            File db = File.createTempFile("linking", ".db");
+            File graphFile = new File(db.getPath() + ".graph"); // absent, so the controller starts empty
+            PrintStream out = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the controller's progress prints
+            double built;
+            double scanned = Double.NaN;
+            try {
+                NoteDao noteDao = new NoteDao(db.getPath());
+                fill(noteDao, n, new Random(31));
+                GraphController controller = new GraphController(graphFile.getPath(), db.getPath());
+
+                built = medianMs(() -> {
+                    try {
+                        controller.buildGraphFromDb(true);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return controller.size();
+                }, 1, n >= 32_000 ? 3 : 5);
+                if (n <= BASELINE_LIMIT) {
+                    scanned = medianMs(() -> {
+                        try {
+                            return titleScan(noteDao.findAll());
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, 1, 3);
+                }
+                controller.close();
+            } finally {
+                System.setOut(out);
+                db.delete();
+                graphFile.delete();
+            }
+
+            if (Double.isNaN(scanned)) {
+                System.out.printf("  %8d %14s %11.1f ms%n", n, "skipped", built);
+            } else {
+                System.out.printf("  %8d %11.1f ms %11.1f ms %8.1fx%n", n, scanned, built, scanned / built);
+            }
+        }
+
+        Bench.footer();
+    }
+
+    /** The linking loop buildGraphFromDb ran before the title index, on the graph of that time */
+    private static long titleScan(List<Note> allNotes) {
+        LegacyGraph graph = new LegacyGraph();
+        long edges = 0;
+        for (Note note : allNotes) {
+            for (String keyword : note.getKeywords()) {
+                for (Note candidate : allNotes) {
+                    if (!candidate.equals(note) && candidate.getTitle().equalsIgnoreCase(keyword)) {
+                        graph.createEdge(note, candidate);
+                        edges++;
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+
+    /** n notes with distinct one-word titles; 3 of each note's 15 keywords are other titles */
+    private static void fill(NoteDao noteDao, int n, Random random) throws SQLException {
+        List<String> titles = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) titles.add(Bench.word(random) + i);
+        String[] vocabulary = new String[5_000];
+        for (int i = 0; i < vocabulary.length; i++) vocabulary[i] = Bench.word(random);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Note> batch = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<String> keywords = new ArrayList<>(KEYWORDS_PER_NOTE);
+            while (keywords.size() < TITLE_KEYWORDS) {
+                String title = titles.get(random.nextInt(n)).toUpperCase(); // links ignore case
+                if (!title.equalsIgnoreCase(titles.get(i)) && !keywords.contains(title)) keywords.add(title);
+            }
+            while (keywords.size() < KEYWORDS_PER_NOTE) {
+                String word = vocabulary[random.nextInt(vocabulary.length)];
+                if (!keywords.contains(word)) keywords.add(word);
+            }
+            Note note = new Note(0, titles.get(i), 1 + random.nextInt(5), now, now, keywords);
+            note.setFilePath("/bench/" + i + ".xml");
+            batch.add(note);
+            if (batch.size() == 1_000 || i == n - 1) {
+                noteDao.importBatch(batch, Collections.nCopies(batch.size(), ""));
+                batch.clear();
+            }
+        }
+    }
+
+}
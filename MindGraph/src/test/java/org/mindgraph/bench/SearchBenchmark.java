@@ -0,0 +1,112 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.db.NoteDao;
+import org.mindgraph.model.Note;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Full-text search latency on a scratch vault of 100,000 notes (times scale). Bodies are
+ * 200 words drawn from a 20,000-word vocabulary with a Zipf-like skew, so there are
+ * very common words and rare ones. Every query runs through NoteDao.search with the
+ * editor's limit of 20 and is timed on its own; p50, p95 and max are printed per kind
+ * (rare, mid-frequency and common words, two words, as-you-type prefixes). Indexing time
+ * is printed too. Words in most notes are the slow case: bm25 has to rank every match.
+ *
+ * Run after mvn test-compile:
+ *   java -cp target/classes:target/test-classes:$(deps) org.mindgraph.bench.SearchBenchmark [scale]
+ */
+public class SearchBenchmark {
+
+    private static final int NOTES = 100_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int WORDS_PER_BODY = 200;
+    private static final int QUERIES = 200;
+    private static final int LIMIT = 20;
+
+    public static void main(String[] args) throws Exception {
+        int scale = Bench.scale(args);
+        Bench.banner("search", scale);
+
+        Random random = new Random(41);
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) vocabulary[i] = Bench.word(random) + (char) ('a' + i % 26);
+
+        File db = File.createTempFile("search", ".db");
+        try {
+            NoteDao noteDao = new NoteDao(db.getPath());
+            int n = NOTES * scale;
+            long startNanos = System.nanoTime();
+            fill(noteDao, n, vocabulary, random);
+            System.out.printf("Indexed %d notes in %.1f s, %.1f MB database%n%n",
+                    n, (System.nanoTime() - startNanos) / 1e9, db.length() / 1e6);
+
+            latency(noteDao, "rare word", i -> vocabulary[VOCABULARY / 2 + random.nextInt(VOCABULARY / 2)]);
+            latency(noteDao, "mid-frequency", i -> vocabulary[200 + random.nextInt(1_800)]);
+            latency(noteDao, "common word", i -> vocabulary[random.nextInt(20)]);
+            latency(noteDao, "two words", i -> zipf(vocabulary, random) + " " + zipf(vocabulary, random));
+            latency(noteDao, "typing prefix", i -> {
+                String word = zipf(vocabulary, random);
+                return word.substring(0, 1 + i % Math.min(3, word.length()));
+            });
+        } finally {
+            for (String suffix : new String[]{"", "-wal", "-shm"}) new File(db.getPath() + suffix).delete();
+        }
+
+        Bench.footer();
+    }
+
+    private interface Query {
+        String text(int i);
+    }
+
+    /** Time QUERIES searches one by one, after a warm-up round, and print their percentiles */
+    private static void latency(NoteDao noteDao, String kind, Query query) throws SQLException {
+        for (int i = 0; i < QUERIES; i++) Bench.sink += noteDao.search(query.text(i), LIMIT).size();
+
+        double[] ms = new double[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String text = query.text(i);
+            long start = System.nanoTime();
+            Bench.sink += noteDao.search(text, LIMIT).size();
+            ms[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(ms);
+        System.out.printf("  %-14s p50 %7.2f ms   p95 %7.2f ms   max %7.2f ms%n",
+                kind, ms[QUERIES / 2], ms[QUERIES * 95 / 100], ms[QUERIES - 1]);
+    }
+
+    private static void fill(NoteDao noteDao, int n, String[] vocabulary, Random random) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Note> batch = new ArrayList<>();
+        List<String> bodies = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            body.setLength(0);
+            for (int w = 0; w < WORDS_PER_BODY; w++) {
+                body.append(zipf(vocabulary, random)).append(w % 15 == 14 ? ".\n" : " ");
+            }
+            Note note = new Note(0, zipf(vocabulary, random) + " " + zipf(vocabulary, random), 1, now, now, List.of());
+            note.setFilePath("/bench/" + i + ".xml");
+            batch.add(note);
+            bodies.add(body.toString());
+            if (batch.size() == 1_000 || i == n - 1) {
+                noteDao.importBatch(batch, bodies);
+                batch.clear();
+                bodies.clear();
+            }
+        }
+    }
+
+    /** A word whose rank r is picked with probability about 1/r */
+    private static String zipf(String[] vocabulary, Random random) {
+        int rank = (int) Math.pow(vocabulary.length, random.nextDouble());
+        return vocabulary[Math.min(rank, vocabulary.length) - 1];
+    }
+}
@@ -0,0 +1,87 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.datastructure.Graph;
+import org.mindgraph.model.KeywordInterner;
+import org.mindgraph.model.Note;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.mindgraph.bench.Bench.header;
+import static org.mindgraph.bench.Bench.medianMs;
+
+/**
+ * Where parallel edge weighting and sorting start to pay off, the crossover that
+ * Graph.PARALLEL_MST_THRESHOLD (50,000 edges) stands for. For each edge count both steps
+ * run as Graph runs them, once sequentially and once on a parallel stream / parallelSort,
+ * and the speedup is printed per row. The answer depends on the core count, so run it on
+ * the kind of machine the threshold is meant for. See Bench for timing.
+ *
+ * Run after mvn test-compile:
+ *   java -cp target/classes:target/test-classes org.mindgraph.bench.WeightingBenchmark [scale]
+ * scale (default 1) multiplies the edge counts.
+ */
+public class WeightingBenchmark {
+
+    private static final int[] EDGE_COUNTS = {5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000};
+    private static final Comparator<Graph.Edge> BY_WEIGHT = Comparator.comparingDouble(e -> e.weight);
+
+    public static void main(String[] args) {
+        int scale = Bench.scale(args);
+        Bench.banner("edge weighting", scale);
+
+        Note[] notes = GraphBenchmark.notes(100_000, new Random(21));
+        for (Note n : notes) n.getKeywordIds(); // intern up front, as the graph's notes already are
+
+        header(String.format("  %10s %12s %12s %8s %12s %12s %8s",
+                "edges", "weigh seq", "weigh par", "speedup", "sort seq", "sort par", "speedup"));
+        for (int count : EDGE_COUNTS) {
+            int n = count * scale;
+            int[][] edges = GraphBenchmark.edges(notes.length, 10, new Random(22));
+            int[] from = new int[n];
+            int[] to = new int[n];
+            for (int i = 0; i < n; i++) {
+                from[i] = edges[i % edges.length][0];
+                to[i] = edges[i % edges.length][1];
+            }
+            int runs = n >= 250_000 ? 5 : Bench.RUNS;
+
+            double weighSeq = medianMs(() -> weigh(notes, from, to, false).length, Bench.WARMUP, runs);
+            double weighPar = medianMs(() -> weigh(notes, from, to, true).length, Bench.WARMUP, runs);
+            Graph.Edge[] weighted = weigh(notes, from, to, false);
+            double sortSeq = medianMs(() -> sort(weighted, false), Bench.WARMUP, runs);
+            double sortPar = medianMs(() -> sort(weighted, true), Bench.WARMUP, runs);
+
+            System.out.printf("  %10d %9.2f ms %9.2f ms %7.2fx %9.2f ms %9.2f ms %7.2fx%n",
+                    n, weighSeq, weighPar, weighSeq / weighPar, sortSeq, sortPar, sortSeq / sortPar);
+        }
+
+        Bench.footer();
+    }
+
+    /** Graph.computeWeightedEdges on prepared endpoint arrays, with its weight formula */
+    private static Graph.Edge[] weigh(Note[] notes, int[] from, int[] to, boolean parallel) {
+        Graph.Edge[] edges = new Graph.Edge[from.length];
+        IntStream range = IntStream.range(0, from.length);
+        if (parallel) range = range.parallel();
+        range.forEach(i -> {
+            Note a = notes[from[i]];
+            Note b = notes[to[i]];
+            double similarity = KeywordInterner.countCommon(a.getKeywordIds(), b.getKeywordIds());
+            edges[i] = new Graph.Edge(a, b, Math.abs(a.getDifficulty() - b.getDifficulty()) - similarity);
+        });
+        return edges;
+    }
+
+    private static long sort(Graph.Edge[] weighted, boolean parallel) {
+        Graph.Edge[] edges = weighted.clone();
+        if (parallel) {
+            Arrays.parallelSort(edges, BY_WEIGHT);
+        } else {
+            Arrays.sort(edges, BY_WEIGHT);
+        }
+        return (long) edges[0].weight;
+    }
+}
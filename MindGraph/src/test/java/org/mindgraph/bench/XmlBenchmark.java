@@ -0,0 +1,105 @@
+package org.mindgraph.bench;
+
+import org.mindgraph.model.Note;
+import org.mindgraph.util.NoteXmlUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import static org.mindgraph.bench.Bench.compare;
+import static org.mindgraph.bench.Bench.header;
+
+/**
+ * Note file save and load: the DOM code NoteXmlUtil used before (LegacyNoteXml) against
+ * the StAX reader and the hand-written writer, on generated notes from a few KB to a few MB.
+ * Paragraphs hold several runs with inline CSS, as formatted notes do. Load is also timed
+ * through readForEditor, which builds the editor document off the FX thread as well.
+ * See Bench for timing.
+ *
+ * Run after mvn test-compile:
+ *   java -cp target/classes:target/test-classes:$(deps) org.mindgraph.bench.XmlBenchmark [scale]
+ * scale (default 1) multiplies the paragraph counts.
+ */
+public class XmlBenchmark {
+
+    private static final int[] PARAGRAPHS = {20, 500, 10_000};
+    private static final String[] STYLES = {"", "-fx-font-weight: bold;", "-fx-font-style: italic;",
+            "-fx-fill: #c0392b; -fx-font-size: 14px;"};
+
+    /** Work that reads or writes a file; failures end the benchmark */
+    private interface FileWork {
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int scale = Bench.scale(args);
+        Bench.banner("note XML", scale);
+
+        for (int count : PARAGRAPHS) {
+            int n = count * scale;
+            List<NoteXmlUtil.Paragraph> paragraphs = paragraphs(n, new Random(51));
+            Note note = new Note("Benchmark note");
+            File domFile = File.createTempFile("xml-dom", ".xml");
+            File staxFile = File.createTempFile("xml-stax", ".xml");
+            try {
+                int runs = n >= 10_000 ? 5 : Bench.RUNS;
+                LegacyNoteXml.save(note, paragraphs, domFile);
+                NoteXmlUtil.write(note, paragraphs, staxFile);
+
+                header("Save, " + n + " paragraphs (" + staxFile.length() / 1024 + " KB)");
+                compare("DOM + Transformer", unchecked(() -> {
+                    LegacyNoteXml.save(note, paragraphs, domFile);
+                    return domFile.length();
+                }), "hand-written writer", unchecked(() -> {
+                    NoteXmlUtil.write(note, paragraphs, staxFile);
+                    return staxFile.length();
+                }), 2, runs);
+
+                header("Load, " + n + " paragraphs");
+                compare("DOM", unchecked(() -> LegacyNoteXml.load(new Note(), domFile).size()),
+                        "StAX", unchecked(() -> NoteXmlUtil.read(new Note(), staxFile).size()), 2, runs);
+                Bench.time("readForEditor", unchecked(() -> NoteXmlUtil.readForEditor(new Note(), staxFile)
+                        .document().getParagraphs().size()), 2, runs);
+                System.out.println();
+            } finally {
+                domFile.delete();
+                staxFile.delete();
+            }
+        }
+
+        Bench.footer();
+    }
+
+    private static LongSupplier unchecked(FileWork work) {
+        return () -> {
+            try {
+                return work.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /** n paragraphs of 1 to 6 styled runs; some text needs escaping */
+    private static List<NoteXmlUtil.Paragraph> paragraphs(int n, Random random) {
+        List<NoteXmlUtil.Paragraph> paragraphs = new ArrayList<>(n);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            int runCount = 1 + random.nextInt(6);
+            List<NoteXmlUtil.Run> runs = new ArrayList<>(runCount);
+            for (int r = 0; r < runCount; r++) {
+                text.setLength(0);
+                int words = 3 + random.nextInt(20);
+                for (int w = 0; w < words; w++) {
+                    text.append(Bench.word(random)).append(random.nextInt(30) == 0 ? " & < " : " ");
+                }
+                runs.add(new NoteXmlUtil.Run(text.toString(), STYLES[random.nextInt(STYLES.length)]));
+            }
+            paragraphs.add(new NoteXmlUtil.Paragraph(i % 10 == 0 ? "-fx-font-size: 18px;" : "", runs));
+        }
+        return paragraphs;
+    }
+}
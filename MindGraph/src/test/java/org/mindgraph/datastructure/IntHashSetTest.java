@@ -0,0 +1,76 @@
+package org.mindgraph.datastructure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    void addContainsRemove() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(7));
+        assertFalse(set.add(7));
+        assertTrue(set.contains(7));
+        assertEquals(1, set.size());
+
+        assertTrue(set.remove(7));
+        assertFalse(set.remove(7));
+        assertFalse(set.contains(7));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void negativeValuesAreRejected() {
+        IntHashSet set = new IntHashSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1));
+        assertFalse(set.contains(-1));
+        assertFalse(set.remove(-1));
+    }
+
+    /** Backward-shift deletion must keep every other member of a probe cluster reachable */
+    @Test
+    void deletionInsideClustersKeepsOtherValuesReachable() {
+        IntHashSet set = new IntHashSet(4); // small table, so values collide and wrap around
+        for (int v = 0; v < 64; v++) set.add(v * 16);
+        for (int v = 0; v < 64; v += 2) assertTrue(set.remove(v * 16));
+
+        for (int v = 0; v < 64; v++) {
+            assertEquals(v % 2 == 1, set.contains(v * 16), "value " + v * 16);
+        }
+        assertEquals(32, set.size());
+    }
+
+    @Test
+    void matchesHashSetUnderRandomOperations() {
+        Random random = new Random(42);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            int v = random.nextInt(5_000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(v), set.add(v));
+                case 1 -> assertEquals(expected.remove(v), set.remove(v));
+                default -> assertEquals(expected.contains(v), set.contains(v));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+
+        int[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), values);
+    }
+
+    @Test
+    void toArrayIsASnapshot() {
+        IntHashSet set = new IntHashSet();
+        for (int v = 0; v < 100; v++) set.add(v);
+        for (int v : set.toArray()) set.remove(v);
+        assertTrue(set.isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package org.mindgraph.datastructure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    void putGetOverwrite() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertEquals(IntIntHashMap.MISSING, map.get(3));
+        map.put(3, 30);
+        map.put(3, 31);
+        assertEquals(31, map.get(3));
+        assertTrue(map.containsKey(3));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeReturnsTheOldValue() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(5, 50);
+        assertEquals(50, map.remove(5));
+        assertEquals(IntIntHashMap.MISSING, map.remove(5));
+        assertFalse(map.containsKey(5));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void negativeKeysAreRejected() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(-2, 1));
+        assertEquals(IntIntHashMap.MISSING, map.get(-2));
+        assertEquals(IntIntHashMap.MISSING, map.remove(-2));
+    }
+
+    @Test
+    void deletionInsideClustersKeepsValuesWithTheirKeys() {
+        IntIntHashMap map = new IntIntHashMap(4);
+        for (int k = 0; k < 64; k++) map.put(k * 32, k);
+        for (int k = 0; k < 64; k += 3) map.remove(k * 32);
+
+        for (int k = 0; k < 64; k++) {
+            assertEquals(k % 3 == 0 ? IntIntHashMap.MISSING : k, map.get(k * 32), "key " + k * 32);
+        }
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int k = random.nextInt(5_000);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    map.put(k, i);
+                    expected.put(k, i);
+                }
+                case 1 -> {
+                    Integer old = expected.remove(k);
+                    assertEquals(old != null ? old : IntIntHashMap.MISSING, map.remove(k));
+                }
+                default -> assertEquals(expected.getOrDefault(k, IntIntHashMap.MISSING), map.get(k));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+    }
+}
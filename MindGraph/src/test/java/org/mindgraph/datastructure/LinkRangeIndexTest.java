@@ -0,0 +1,146 @@
+package org.mindgraph.datastructure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkRangeIndexTest {
+
+    @Test
+    void lookupInsideAndOutsideRanges() {
+        LinkRangeIndex<String> index = new LinkRangeIndex<>();
+        index.add(2, 5, "a");
+        index.add(8, 10, "b");
+
+        assertNull(index.at(1));
+        assertEquals("a", index.at(2));
+        assertEquals("a", index.at(4));
+        assertNull(index.at(5)); // end is exclusive
+        assertEquals("b", index.at(9));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void rejectsOverlapsAndOutOfOrderRanges() {
+        LinkRangeIndex<String> index = new LinkRangeIndex<>();
+        index.add(5, 9, "a");
+        assertThrows(IllegalArgumentException.class, () -> index.add(7, 12, "b"));
+        assertThrows(IllegalArgumentException.class, () -> index.add(0, 2, "c"));
+        assertThrows(IllegalArgumentException.class, () -> index.add(10, 12, null));
+    }
+
+    @Test
+    void insertionBeforeARangeShiftsIt() {
+        LinkRangeIndex<String> index = new LinkRangeIndex<>();
+        index.add(10, 14, "a");
+        index.add(20, 24, "b");
+
+        index.edit(0, 0, 3);
+        assertNull(index.at(10));
+        assertEquals("a", index.at(13));
+        assertEquals("b", index.at(26));
+
+        index.edit(0, 5, 0); // delete before both ranges
+        assertEquals("a", index.at(8));
+        assertEquals("b", index.at(18));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void editsTouchingOnlyTheBoundaryKeepTheRange() {
+        LinkRangeIndex<String> index = new LinkRangeIndex<>();
+        index.add(2, 5, "a");
+
+        index.edit(5, 0, 2); // typing right after the link
+        assertEquals("a", index.at(4));
+        assertNull(index.at(5));
+
+        index.edit(2, 0, 1); // typing right before it pushes it along
+        assertNull(index.at(2));
+        assertEquals("a", index.at(3));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void editsInsideARangeDropIt() {
+        LinkRangeIndex<String> index = new LinkRangeIndex<>();
+        index.add(2, 5, "a");
+        index.add(8, 12, "b");
+
+        index.edit(3, 0, 1); // insert inside "a"
+        assertNull(index.at(2));
+        assertEquals("b", index.at(9));
+
+        index.edit(7, 3, 0); // delete across the start of "b" (now at 9)
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void addAfterEditsUsesCurrentPositions() {
+        LinkRangeIndex<String> index = new LinkRangeIndex<>();
+        index.add(0, 3, "a");
+        index.edit(0, 0, 10);
+        index.add(20, 25, "b");
+
+        assertEquals("a", index.at(11));
+        assertEquals("b", index.at(20));
+        assertNull(index.at(25));
+    }
+
+    /** Random edits against a plain list of ranges that is rewritten on every edit */
+    @Test
+    void matchesNaiveShiftingUnderRandomEdits() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            LinkRangeIndex<Integer> index = new LinkRangeIndex<>();
+            List<int[]> naive = new ArrayList<>(); // {start, end, target}
+            int length = 0;
+            for (int k = 0; k < 200; k++) {
+                int start = length + random.nextInt(5);
+                int end = start + 1 + random.nextInt(6);
+                index.add(start, end, k);
+                naive.add(new int[]{start, end, k});
+                length = end;
+            }
+            length += 10;
+
+            for (int e = 0; e < 300; e++) {
+                int position = random.nextInt(length + 1);
+                int removed = Math.min(random.nextInt(4), length - position);
+                int inserted = random.nextInt(4);
+                index.edit(position, removed, inserted);
+                naive = shifted(naive, position, removed, inserted);
+                length += inserted - removed;
+            }
+
+            assertEquals(naive.size(), index.size());
+            for (int pos = 0; pos <= length; pos++) {
+                assertEquals(naiveAt(naive, pos), index.at(pos), "round " + round + ", position " + pos);
+            }
+        }
+    }
+
+    private static List<int[]> shifted(List<int[]> ranges, int position, int removed, int inserted) {
+        List<int[]> out = new ArrayList<>();
+        int delta = inserted - removed;
+        for (int[] r : ranges) {
+            if (r[0] >= position + removed) {
+                out.add(new int[]{r[0] + delta, r[1] + delta, r[2]});
+            } else if (r[1] <= position) {
+                out.add(r);
+            } // otherwise the edit touched the linked text: dropped
+        }
+        return out;
+    }
+
+    private static Integer naiveAt(List<int[]> ranges, int pos) {
+        for (int[] r : ranges) {
+            if (r[0] <= pos && pos < r[1]) return r[2];
+        }
+        return null;
+    }
+}
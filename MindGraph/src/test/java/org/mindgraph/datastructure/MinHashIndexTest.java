@@ -0,0 +1,124 @@
+package org.mindgraph.datastructure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashIndexTest {
+
+    private static final long SEED = 0x6d696e64L;
+
+    @Test
+    void exactJaccard() {
+        assertEquals(1.0, MinHashIndex.jaccard(new int[]{1, 2, 3}, new int[]{1, 2, 3}));
+        assertEquals(0.5, MinHashIndex.jaccard(new int[]{1, 2, 3}, new int[]{2, 3, 4}));
+        assertEquals(0.2, MinHashIndex.jaccard(new int[]{1, 2}, new int[]{2, 3, 4, 5}), 1e-9);
+        assertEquals(0.0, MinHashIndex.jaccard(new int[0], new int[0]));
+    }
+
+    @Test
+    void identicalSetsAreAlwaysCandidates() {
+        MinHashIndex index = new MinHashIndex(8, 4, 100, SEED);
+        index.put(1, new int[]{3, 9, 27});
+        index.put(2, new int[]{3, 9, 27});
+        index.put(3, new int[]{100, 200, 300});
+
+        IntHashSet candidates = index.candidates(1);
+        assertTrue(candidates.contains(2));
+        assertFalse(candidates.contains(1)); // never its own candidate
+        assertFalse(candidates.contains(3));
+    }
+
+    @Test
+    void putReplacesAndRemoveForgets() {
+        MinHashIndex index = new MinHashIndex(8, 4, 100, SEED);
+        index.put(1, new int[]{1, 2, 3});
+        index.put(2, new int[]{1, 2, 3});
+        index.put(2, new int[]{7, 8, 9}); // replaced: no longer like note 1
+        assertFalse(index.candidates(1).contains(2));
+
+        index.put(3, new int[]{1, 2, 3});
+        index.remove(3);
+        assertFalse(index.contains(3));
+        assertTrue(index.candidates(1).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void emptySetsAreNotIndexed() {
+        MinHashIndex index = new MinHashIndex(8, 4, 100, SEED);
+        index.put(1, new int[0]);
+        assertFalse(index.contains(1));
+        assertTrue(index.candidates(1).isEmpty());
+    }
+
+    @Test
+    void oversizedBucketsYieldNoCandidates() {
+        MinHashIndex index = new MinHashIndex(4, 2, 5, SEED);
+        for (int key = 0; key < 10; key++) index.put(key, new int[]{1, 2, 3});
+        assertTrue(index.candidates(0).isEmpty());
+    }
+
+    @Test
+    void thresholdFollowsBandsAndRows() {
+        assertEquals(Math.pow(1.0 / 32, 1.0 / 4), new MinHashIndex(32, 4, 200, SEED).threshold(), 1e-12);
+    }
+
+    /**
+     * Recall at the app's settings (32 bands × 4 rows, threshold ≈ 0.42): pairs at Jaccard ≈ 0.8
+     * should nearly always be candidates, pairs at ≈ 0.05 almost never. Ids and seed are fixed.
+     */
+    @Test
+    void lshRecallSeparatesSimilarFromDissimilarPairs() {
+        MinHashIndex index = new MinHashIndex(32, 4, 200, SEED);
+        int pairs = 300;
+        int[][] similar = new int[2 * pairs][];
+        int[][] dissimilar = new int[2 * pairs][];
+        int nextId = 0;
+        for (int p = 0; p < pairs; p++) {
+            // 18 shared ids plus 2 each of their own: Jaccard 18/22 ≈ 0.82
+            int[] shared = ids(nextId, 18);
+            nextId += 18;
+            similar[2 * p] = concat(shared, ids(nextId, 2));
+            similar[2 * p + 1] = concat(shared, ids(nextId + 2, 2));
+            nextId += 4;
+
+            // 2 shared ids plus 18 each of their own: Jaccard 2/38 ≈ 0.05
+            int[] common = ids(nextId, 2);
+            nextId += 2;
+            dissimilar[2 * p] = concat(common, ids(nextId, 18));
+            dissimilar[2 * p + 1] = concat(common, ids(nextId + 18, 18));
+            nextId += 36;
+        }
+        int dissimilarBase = 2 * pairs;
+        for (int k = 0; k < 2 * pairs; k++) {
+            index.put(k, similar[k]);
+            index.put(dissimilarBase + k, dissimilar[k]);
+        }
+
+        int found = 0;
+        int falsePositives = 0;
+        for (int p = 0; p < pairs; p++) {
+            if (index.candidates(2 * p).contains(2 * p + 1)) found++;
+            if (index.candidates(dissimilarBase + 2 * p).contains(dissimilarBase + 2 * p + 1)) falsePositives++;
+        }
+        double recall = (double) found / pairs;
+        assertTrue(recall >= 0.95, "recall " + recall);
+        assertTrue(falsePositives <= pairs / 50, "false positives " + falsePositives);
+    }
+
+    private static int[] ids(int from, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = from + i;
+        return ids;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        Arrays.sort(out);
+        return out;
+    }
+}
@@ -0,0 +1,74 @@
+package org.mindgraph.datastructure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TitleMatcherTest {
+
+    private static TitleMatcher<String> matcher(String... titles) {
+        return TitleMatcher.build(List.of(titles), Function.identity());
+    }
+
+    private static List<String> linked(TitleMatcher<String> matcher, String text) {
+        return matcher.findAll(text, t -> true).stream()
+                .map(m -> text.substring(m.start(), m.end()))
+                .toList();
+    }
+
+    @Test
+    void matchesWholeWordsCaseInsensitively() {
+        TitleMatcher<String> m = matcher("graph");
+        assertEquals(List.of("Graph", "graph"), linked(m, "Graph theory: a graph."));
+    }
+
+    @Test
+    void ignoresMatchesInsideWords() {
+        TitleMatcher<String> m = matcher("graph", "art");
+        assertEquals(List.of(), linked(m, "paragraphs, photographic, start, artist"));
+    }
+
+    @Test
+    void includesPluralSuffixes() {
+        TitleMatcher<String> m = matcher("graph", "class");
+        assertEquals(List.of("graphs", "classes", "graph"), linked(m, "graphs and classes, one graph"));
+        assertEquals(List.of(), linked(m, "graphsx classesy"));
+    }
+
+    @Test
+    void prefersTheLongestTitleAtAPosition() {
+        TitleMatcher<String> m = matcher("binary", "binary tree", "tree");
+        List<TitleMatcher.Match<String>> matches = m.findAll("a binary tree and a tree", t -> true);
+        assertEquals(2, matches.size());
+        assertEquals("binary tree", matches.get(0).value());
+        assertEquals("tree", matches.get(1).value());
+        assertEquals(2, matches.get(0).start());
+        assertEquals(13, matches.get(0).end());
+    }
+
+    @Test
+    void rejectedValuesLeaveTheTextForShorterTitles() {
+        TitleMatcher<String> m = matcher("binary tree", "tree");
+        List<TitleMatcher.Match<String>> matches = m.findAll("binary tree", t -> !t.equals("binary tree"));
+        assertEquals(1, matches.size());
+        assertEquals("tree", matches.get(0).value());
+        assertEquals(7, matches.get(0).start());
+    }
+
+    @Test
+    void titlesAreLiteralTextNotRegex() {
+        TitleMatcher<String> m = matcher("c++", "a.b");
+        assertEquals(List.of("C++"), linked(m, "C++ and axb"));
+    }
+
+    @Test
+    void blankTitlesAreSkipped() {
+        TitleMatcher<String> m = TitleMatcher.build(Arrays.asList("", " ", null, "note"), Function.identity());
+        assertEquals(1, m.phraseCount());
+        assertEquals(List.of("note"), linked(m, "a note"));
+    }
+}
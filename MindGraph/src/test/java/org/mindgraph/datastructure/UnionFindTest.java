@@ -0,0 +1,40 @@
+package org.mindgraph.datastructure;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnionFindTest {
+
+    @Test
+    void startsWithSingletons() {
+        UnionFind sets = new UnionFind(4);
+        assertEquals(4, sets.sets());
+        for (int i = 0; i < 4; i++) assertEquals(i, sets.find(i));
+        assertFalse(sets.connected(0, 1));
+    }
+
+    @Test
+    void unionJoinsOnceAndCountsSets() {
+        UnionFind sets = new UnionFind(5);
+        assertTrue(sets.union(0, 1));
+        assertTrue(sets.union(3, 4));
+        assertFalse(sets.union(1, 0));
+        assertEquals(3, sets.sets());
+
+        assertTrue(sets.union(1, 4));
+        assertTrue(sets.connected(0, 3));
+        assertFalse(sets.connected(0, 2));
+        assertEquals(2, sets.sets());
+    }
+
+    /** A long chain would overflow a recursive find; path halving keeps it iterative */
+    @Test
+    void longChainsDoNotRecurse() {
+        int n = 1_000_000;
+        UnionFind sets = new UnionFind(n);
+        for (int i = 1; i < n; i++) sets.union(i - 1, i);
+        assertEquals(1, sets.sets());
+        assertTrue(sets.connected(0, n - 1));
+    }
+}
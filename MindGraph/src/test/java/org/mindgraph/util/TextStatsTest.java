@@ -0,0 +1,86 @@
+package org.mindgraph.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextStatsTest {
+
+    private static long words(String text) {
+        return text.isBlank() ? 0 : text.trim().split("\\s+").length;
+    }
+
+    /** Replace text[start, end) with inserted, updating stats the way the editor does */
+    private static String edit(TextStats stats, String text, int start, int end, String inserted) {
+        int before = start > 0 ? text.charAt(start - 1) : TextStats.NONE;
+        int after = end < text.length() ? text.charAt(end) : TextStats.NONE;
+        stats.apply(before, text.substring(start, end), inserted, after);
+        return text.substring(0, start) + inserted + text.substring(end);
+    }
+
+    @Test
+    void resetCountsCharsAndWords() {
+        TextStats stats = new TextStats();
+        stats.reset("  two words\n\tthree ");
+        assertEquals(19, stats.getChars());
+        assertEquals(3, stats.getWords());
+
+        stats.reset("");
+        assertEquals(0, stats.getWords());
+    }
+
+    @Test
+    void typingASpaceSplitsAWord() {
+        TextStats stats = new TextStats();
+        String text = "hello";
+        stats.reset(text);
+        text = edit(stats, text, 2, 2, " ");
+        assertEquals("he llo", text);
+        assertEquals(2, stats.getWords());
+    }
+
+    @Test
+    void deletingASpaceJoinsWords() {
+        TextStats stats = new TextStats();
+        String text = "one two";
+        stats.reset(text);
+        text = edit(stats, text, 3, 4, "");
+        assertEquals("onetwo", text);
+        assertEquals(1, stats.getWords());
+        assertEquals(6, stats.getChars());
+    }
+
+    @Test
+    void editsAtTheDocumentEdges() {
+        TextStats stats = new TextStats();
+        String text = "middle";
+        stats.reset(text);
+        text = edit(stats, text, 0, 0, "start ");
+        text = edit(stats, text, text.length(), text.length(), " end");
+        assertEquals(3, stats.getWords());
+        text = edit(stats, text, 0, text.length(), "");
+        assertEquals(0, stats.getWords());
+        assertEquals(0, stats.getChars());
+    }
+
+    @Test
+    void matchesAFullRecountUnderRandomEdits() {
+        Random random = new Random(5);
+        String alphabet = "ab \n\t";
+        TextStats stats = new TextStats();
+        String text = "";
+        stats.reset(text);
+        for (int i = 0; i < 20_000; i++) {
+            int start = random.nextInt(text.length() + 1);
+            int end = Math.min(text.length(), start + random.nextInt(4));
+            StringBuilder inserted = new StringBuilder();
+            for (int k = random.nextInt(4); k > 0; k--) inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+            text = edit(stats, text, start, end, inserted.toString());
+            assertEquals(text.length(), stats.getChars());
+            assertEquals(words(text), stats.getWords(), "after edit " + i);
+        }
+    }
+}